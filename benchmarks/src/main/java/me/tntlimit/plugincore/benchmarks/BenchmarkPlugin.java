@@ -0,0 +1,51 @@
+package me.tntlimit.plugincore.benchmarks;
+
+import me.tntlimit.plugincore.base.PluginBase;
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.PluginDescriptionFile;
+import org.bukkit.plugin.java.JavaPluginLoader;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+
+/**
+ * A plugin running on the fake server, with its data folder in a temporary directory
+ */
+final class BenchmarkPlugin extends PluginBase {
+
+	private BenchmarkPlugin(File dataFolder) {
+		super(new JavaPluginLoader(Bukkit.getServer()), new PluginDescriptionFile("Benchmark", "1.0", BenchmarkPlugin.class.getName()),
+				dataFolder, new File(dataFolder, "Benchmark.jar"));
+	}
+
+	/**
+	 * Create the plugin, installing the fake server first if needed
+	 *
+	 * @param messages The contents of messages.properties
+	 * @param config The contents of config.yml
+	 * @return The plugin, also set as {@link PluginBase#INSTANCE}
+	 */
+	static BenchmarkPlugin create(String messages, String config) {
+		Fakes.install();
+
+		try {
+			Path dataFolder = Files.createTempDirectory("plugincore-benchmark");
+			Files.write(dataFolder.resolve("messages.properties"), messages.getBytes(StandardCharsets.ISO_8859_1));
+			Files.write(dataFolder.resolve("config.yml"), config.getBytes(StandardCharsets.UTF_8));
+			return new BenchmarkPlugin(dataFolder.toFile());
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Override
+	public void onEnable() { }
+
+	@Override
+	public void onDisable() { }
+}
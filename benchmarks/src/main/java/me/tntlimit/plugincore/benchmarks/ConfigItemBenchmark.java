@@ -0,0 +1,82 @@
+package me.tntlimit.plugincore.benchmarks;
+
+import me.tntlimit.plugincore.base.PluginBase;
+import me.tntlimit.plugincore.util.Utils;
+import org.bukkit.inventory.ItemStack;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Getting items from the config with {@link Utils#getItemFromConfig(String, ItemStack)},
+ * from the prototype cache and when the config was just reloaded.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConfigItemBenchmark {
+	private static final String[] MATERIALS = { "STONE", "DIAMOND", "GOLD_BLOCK", "PAPER", "ARROW" };
+
+	@Param({ "10", "1000" })
+	public int items;
+
+	private String[] keys;
+	private int cursor;
+
+
+	@Setup
+	public void setUp() {
+		StringBuilder config = new StringBuilder("items:\n");
+		keys = new String[items];
+		for (int i = 0; i < items; i++) {
+			keys[i] = "items.item" + i;
+			config.append("  item").append(i).append(":\n")
+					.append("    material: ").append(MATERIALS[i % MATERIALS.length]).append('\n')
+					.append("    name: '&a&lItem ").append(i).append("'\n")
+					.append("    lore:\n")
+					.append("      - '&7First line'\n")
+					.append("      - '&7Second line of item ").append(i).append("'\n");
+		}
+
+		BenchmarkPlugin.create("no-permission=&cYou do not have permission\n", config.toString());
+		PluginBase.INSTANCE.reloadConfig();
+	}
+
+	private String next() {
+		if (++cursor == items) cursor = 0;
+		return keys[cursor];
+	}
+
+	@Benchmark
+	public ItemStack getItemFromConfig() {
+		return Utils.getItemFromConfig(next(), null);
+	}
+
+	@Benchmark
+	public ItemStack getSharedItemFromConfig() {
+		return Utils.getSharedItemFromConfig(next(), null);
+	}
+
+	/**
+	 * Every lookup parses and builds the item, as after a config reload
+	 */
+	@Benchmark
+	public ItemStack getItemFromConfigUncached() {
+		Utils.invalidateConfigItems();
+		return Utils.getItemFromConfig(next(), null);
+	}
+}
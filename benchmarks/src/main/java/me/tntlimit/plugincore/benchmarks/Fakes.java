@@ -0,0 +1,236 @@
+package me.tntlimit.plugincore.benchmarks;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Server;
+import org.bukkit.entity.HumanEntity;
+import org.bukkit.entity.Player;
+import org.bukkit.event.inventory.InventoryType;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.InventoryHolder;
+import org.bukkit.inventory.InventoryView;
+import org.bukkit.inventory.ItemFactory;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.Damageable;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.plugin.PluginManager;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+
+/**
+ * In-process stand-ins for the parts of the server the benchmarked code touches.
+ * Everything is a {@link Proxy} implementing only what is needed, other methods return null, 0 or false.
+ */
+final class Fakes {
+	private static boolean installed;
+
+
+	private Fakes() { }
+
+	/**
+	 * Install the fake server as the Bukkit server, once per JVM
+	 */
+	static synchronized void install() {
+		if (installed) return;
+
+		Logger logger = Logger.getLogger("Benchmark");
+		ItemFactory itemFactory = itemFactory();
+		PluginManager pluginManager = proxy(PluginManager.class, (proxy, method, args) -> null); // Listeners are registered but never called
+		Server server = proxy(Server.class, (proxy, method, args) -> {
+			switch (method.getName()) {
+				case "getLogger": return logger;
+				case "getName": return "Benchmark";
+				case "getVersion":
+				case "getBukkitVersion": return "1.15.2-R0.1-SNAPSHOT";
+				case "getItemFactory": return itemFactory;
+				case "getPluginManager": return pluginManager;
+				case "isPrimaryThread": return true;
+				case "getOnlinePlayers": return Collections.emptyList();
+				case "createInventory": return inventory((InventoryHolder) args[0], (Integer) args[1]);
+				default: return null;
+			}
+		});
+
+		Bukkit.setServer(server);
+		installed = true;
+	}
+
+	/**
+	 * A player with every permission, who can have one inventory open
+	 */
+	static Player player(String name) {
+		UUID uuid = UUID.nameUUIDFromBytes(name.getBytes());
+		View view = new View();
+		Player player = proxy(Player.class, (proxy, method, args) -> {
+			switch (method.getName()) {
+				case "getName": return name;
+				case "getUniqueId": return uuid;
+				case "getLocale": return "en_us";
+				case "getOpenInventory": return view;
+				case "openInventory":
+					if (args[0] instanceof Inventory) view.top = (Inventory) args[0];
+					return view;
+				case "closeInventory":
+					view.top = null;
+					return null;
+				case "hasPermission":
+				case "canSee": return true;
+				default: return null;
+			}
+		});
+
+		view.player = player;
+		return player;
+	}
+
+	private static Inventory inventory(InventoryHolder holder, int size) {
+		ItemStack[] contents = new ItemStack[size];
+		return proxy(Inventory.class, (proxy, method, args) -> {
+			switch (method.getName()) {
+				case "getSize": return size;
+				case "getHolder": return holder;
+				case "getItem": return contents[(Integer) args[0]];
+				case "setItem":
+					contents[(Integer) args[0]] = (ItemStack) args[1];
+					return null;
+				case "getContents": return contents.clone();
+				case "clear":
+					if (args == null) Arrays.fill(contents, null);
+					else contents[(Integer) args[0]] = null;
+					return null;
+				default: return null;
+			}
+		});
+	}
+
+	private static ItemFactory itemFactory() {
+		return proxy(ItemFactory.class, (proxy, method, args) -> {
+			switch (method.getName()) {
+				case "getItemMeta": return meta(new HashMap<>());
+				case "isApplicable": return true;
+				case "asMetaFor": return ((ItemMeta) args[0]).clone();
+				case "updateMaterial": return args[1];
+				case "equals": return args[0] == null ? args[1] == null : args[0].equals(args[1]); // Both metas
+				default: return null;
+			}
+		});
+	}
+
+	private static ItemMeta meta(Map<String, Object> properties) {
+		return (ItemMeta) Proxy.newProxyInstance(Fakes.class.getClassLoader(),
+				new Class<?>[] { ItemMeta.class, Damageable.class }, new MetaHandler(properties));
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+		return (T) Proxy.newProxyInstance(Fakes.class.getClassLoader(), new Class<?>[] { type }, (proxy, method, args) -> {
+			switch (method.getName()) {
+				case "hashCode": if (method.getParameterCount() == 0) return System.identityHashCode(proxy); break;
+				case "equals": if (method.getParameterCount() == 1) return proxy == args[0]; break;
+				case "toString": if (method.getParameterCount() == 0) return type.getSimpleName() + "@" + Integer.toHexString(System.identityHashCode(proxy)); break;
+			}
+
+			Object result = handler.invoke(proxy, method, args);
+			return result != null ? result : defaultValue(method.getReturnType());
+		});
+	}
+
+	private static Object defaultValue(Class<?> type) {
+		if (!type.isPrimitive() || type == void.class) return null;
+		if (type == boolean.class) return false;
+		if (type == char.class) return '\0';
+		if (type == long.class) return 0L;
+		if (type == float.class) return 0f;
+		if (type == double.class) return 0d;
+		if (type == byte.class) return (byte) 0;
+		if (type == short.class) return (short) 0;
+		return 0;
+	}
+
+
+	/**
+	 * The inventory view of a fake player, InventoryView is a class so it cannot be proxied
+	 */
+	private static final class View extends InventoryView {
+		private Player player;
+		private Inventory top;
+
+		@Override
+		public Inventory getTopInventory() {
+			return top;
+		}
+
+		@Override
+		public Inventory getBottomInventory() {
+			return null;
+		}
+
+		@Override
+		public HumanEntity getPlayer() {
+			return player;
+		}
+
+		@Override
+		public InventoryType getType() {
+			return top == null ? InventoryType.CRAFTING : InventoryType.CHEST;
+		}
+
+		@Override
+		public String getTitle() {
+			return "";
+		}
+	}
+
+	/**
+	 * Item meta storing its properties in a map, get/set/has methods read and write them
+	 */
+	private static final class MetaHandler implements InvocationHandler {
+		private final Map<String, Object> properties;
+
+		private MetaHandler(Map<String, Object> properties) {
+			this.properties = properties;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) {
+			String name = method.getName();
+			int arguments = args == null ? 0 : args.length;
+
+			switch (name) {
+				case "clone": return meta(new HashMap<>(properties));
+				case "hashCode": return properties.hashCode();
+				case "toString": return "ItemMeta" + properties;
+				case "equals":
+					if (args[0] == null || !Proxy.isProxyClass(args[0].getClass())) return false;
+					InvocationHandler other = Proxy.getInvocationHandler(args[0]);
+					return other instanceof MetaHandler && properties.equals(((MetaHandler) other).properties);
+			}
+
+			if (name.startsWith("set") && arguments == 1) {
+				Object value = args[0] instanceof List ? new ArrayList<>((List<?>) args[0]) : args[0];
+				if (value == null) properties.remove(name.substring(3));
+				else properties.put(name.substring(3), value);
+				return null;
+			}
+
+			if (name.startsWith("has") && arguments == 0) return properties.containsKey(name.substring(3));
+			if (name.startsWith("get") && arguments == 0) {
+				Object value = properties.get(name.substring(3));
+				if (value instanceof List) return new ArrayList<>((List<?>) value);
+				if (value != null) return value;
+			}
+
+			return defaultValue(method.getReturnType());
+		}
+	}
+}
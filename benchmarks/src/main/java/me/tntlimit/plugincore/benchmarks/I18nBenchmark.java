@@ -0,0 +1,73 @@
+package me.tntlimit.plugincore.benchmarks;
+
+import me.tntlimit.plugincore.util.I18n;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Formatting messages with {@link I18n#format} and colorizing strings with {@link I18n#colorize}.
+ * Keys are cycled so the number of messages exercises the template and colorize caches.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class I18nBenchmark {
+	@Param({ "10", "1000", "5000" })
+	public int messages;
+
+	@Param({ "0", "10" })
+	public int variables;
+
+	private String[] keys;
+	private String[] raw;
+	private int cursor;
+
+
+	@Setup
+	public void setUp() {
+		StringBuilder file = new StringBuilder("no-permission=&cYou do not have permission\n");
+		for (int i = 0; i < variables; i++) file.append("var.v").append(i).append("=&6Value ").append(i).append('\n');
+
+		keys = new String[messages];
+		raw = new String[messages];
+		for (int i = 0; i < messages; i++) {
+			String variable = variables == 0 ? "" : " {v" + (i % variables) + "}";
+			keys[i] = "message." + i;
+			raw[i] = "&aColorized &7message " + i + variable;
+			file.append(keys[i]).append("=&aHello &7{0}&a, you have &e{1} &acoins").append(variable).append('\n');
+		}
+
+		BenchmarkPlugin.create(file.toString(), "");
+		I18n.reload();
+	}
+
+	private int next() {
+		if (++cursor == messages) cursor = 0;
+		return cursor;
+	}
+
+	@Benchmark
+	public String format() {
+		return I18n.format(keys[next()], "Steve", 42);
+	}
+
+	@Benchmark
+	public String colorize() {
+		return I18n.colorize(raw[next()]);
+	}
+}
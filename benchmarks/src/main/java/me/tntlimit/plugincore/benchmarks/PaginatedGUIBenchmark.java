@@ -0,0 +1,83 @@
+package me.tntlimit.plugincore.benchmarks;
+
+import me.tntlimit.plugincore.util.ItemBuilder;
+import me.tntlimit.plugincore.util.PaginatedGUI;
+import org.bukkit.Material;
+import org.bukkit.entity.Player;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.inventory.ItemStack;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Changing pages with {@link PaginatedGUI#displayPage(int)}, cycling through the first pages of the GUI.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PaginatedGUIBenchmark {
+	private static final int CYCLED_PAGES = 4;
+
+	@Param({ "18", "54" })
+	public int size;
+
+	@Param({ "100", "10000" })
+	public int elements;
+
+	@Param({ "true", "false" })
+	public boolean incremental;
+
+	private PaginatedGUI<Integer> gui;
+	private int pages;
+	private int page;
+
+
+	@Setup
+	public void setUp() {
+		BenchmarkPlugin.create("no-permission=&cYou do not have permission\n", "");
+
+		Integer[] ids = new Integer[elements];
+		ItemStack[] items = new ItemStack[elements];
+		for (int i = 0; i < elements; i++) {
+			ids[i] = i;
+			items[i] = new ItemBuilder(Material.PAPER).setDisplayName("&aElement " + i).setLore("&7Click to select").build();
+		}
+
+		Player player = Fakes.player("Benchmark");
+		gui = new PaginatedGUI<Integer>(size, player, "&8Benchmark", ids) {
+			@Override
+			public ItemStack getItem(Integer element) {
+				return items[element];
+			}
+
+			@Override
+			public void onInventoryClick(InventoryClickEvent e, Player p, int slot, Integer element) { }
+		};
+
+		gui.setIncrementalRendering(incremental);
+		gui.display();
+		pages = Math.min(CYCLED_PAGES, gui.getMaxPages());
+	}
+
+	@Benchmark
+	public int displayPage() {
+		if (++page == pages) page = 0;
+		gui.displayPage(page);
+		return gui.getPage();
+	}
+}
@@ -0,0 +1,165 @@
+package me.tntlimit.plugincore.base;
+
+import me.tntlimit.plugincore.util.LatencyHistogram;
+import me.tntlimit.plugincore.util.Metrics;
+import org.bukkit.Bukkit;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+
+
+/**
+ * A command that runs off the main thread.
+ * Use this for commands that query a database or do heavy work, so they do not stall the server.
+ * <br><br>
+ * The console and permission checks still run on the main thread, then {@link #executeAsync} runs on
+ * the shared worker pool ({@link PluginBase#workers()}).
+ * Subcommands can be declared as on any command, they are routed and their arguments parsed on the main thread,
+ * then their handlers run on the worker pool.
+ * <b>Do not</b> use the Bukkit API from it, get back onto the main thread with {@link #sync(Runnable)} or {@link #sync(Supplier)}:
+ * <pre>
+ * public void executeAsync(CommandSender sender, Command command, String label, String[] args) {
+ *     Stats stats = database.load(args[0]);
+ *     sync(() -&gt; new StatsGUI((Player) sender, stats).display());
+ * }
+ * </pre>
+ * Each sender can only run the command a limited number of times at once (once by default),
+ * further runs are refused until the previous ones finish.
+ * <br><br>
+ * Uses the <b>command-running</b> and <b>command-error</b> keys of messages.properties.
+ */
+public abstract class AsyncCommandBase extends CommandBase {
+	private final ConcurrentHashMap<Object, Integer> running = new ConcurrentHashMap<>(); // Runs in progress per sender
+	private final LatencyHistogram executeAsyncTime = Metrics.histogram("/" + getName() + ".executeAsync");
+	private int maxConcurrentPerSender = 1;
+
+
+	/**
+	 * @see CommandBase#CommandBase(String)
+	 */
+	public AsyncCommandBase(String name) {
+		super(name);
+	}
+
+	/**
+	 * @see CommandBase#CommandBase(String, boolean, String)
+	 */
+	public AsyncCommandBase(String name, boolean allowedInConsole, String permission) {
+		super(name, allowedInConsole, permission);
+	}
+
+	/**
+	 * Schedules {@link #executeAsync}, or the handler of the matching subcommand, on the worker pool
+	 */
+	@Override
+	public final void execute(CommandSender sender, Command command, String label, String[] args) {
+		Object key = sender instanceof Player ? ((Player) sender).getUniqueId() : sender.getName();
+		if (running.merge(key, 1, Integer::sum) > maxConcurrentPerSender) {
+			finish(key);
+			sender.sendMessage(tl("command-running"));
+			return;
+		}
+
+		if (!hasSubcommands()) submit(sender, key, () -> executeAsync(sender, command, label, args));
+		else if (!dispatch(sender, label, args, task -> submit(sender, key, task))) finish(key); // Usage or parse error
+	}
+
+	private void submit(CommandSender sender, Object key, Runnable task) {
+		try {
+			PluginBase.workers().execute(() -> {
+				long start = Metrics.start();
+				try {
+					task.run();
+				} catch (Throwable e) {
+					PluginBase.INSTANCE.getLogger().log(Level.SEVERE, "Error while executing command " + getName(), e);
+					sync(() -> sender.sendMessage(tl("command-error")));
+				} finally {
+					Metrics.stop(executeAsyncTime, start);
+					finish(key);
+				}
+			});
+		} catch (RejectedExecutionException e) { // The plugin is being disabled
+			finish(key);
+		}
+	}
+
+	private void finish(Object key) {
+		running.computeIfPresent(key, (k, count) -> count == 1 ? null : count - 1);
+	}
+
+	/**
+	 * Called on the worker pool when the command is executed.
+	 * Only called after checks pass (console, permission, concurrent runs)
+	 * Not called if subcommands are declared, their handlers are run instead.
+	 * By default this logs that the command does nothing and tells the sender an error occurred.
+	 *
+	 * @param sender The sender of the command (player or console)
+	 * @param command The command object
+	 * @param label The alias used to execute the command
+	 * @param args The arguments passed to the command
+	 */
+	public void executeAsync(CommandSender sender, Command command, String label, String[] args) {
+		PluginBase.INSTANCE.getLogger().warning("Command " + getName() + " declares no subcommands and does not override executeAsync");
+		sync(() -> sender.sendMessage(tl("command-error")));
+	}
+
+	/**
+	 * Run a task on the main thread, immediately if this already is the main thread
+	 *
+	 * @param task The task, may use the Bukkit API
+	 * @return A future completed once the task ran
+	 */
+	protected CompletableFuture<Void> sync(Runnable task) {
+		return sync(() -> {
+			task.run();
+			return null;
+		});
+	}
+
+	/**
+	 * Compute a value on the main thread, immediately if this already is the main thread.
+	 * Call {@code join()} on the result to wait for it from the worker pool.
+	 *
+	 * @param task The task, may use the Bukkit API
+	 * @return A future completed with the value once the task ran
+	 */
+	protected <T> CompletableFuture<T> sync(Supplier<T> task) {
+		CompletableFuture<T> future = new CompletableFuture<>();
+		Runnable run = () -> {
+			try {
+				future.complete(task.get());
+			} catch (Throwable e) {
+				future.completeExceptionally(e);
+			}
+		};
+
+		if (Bukkit.isPrimaryThread()) run.run();
+		else Bukkit.getScheduler().runTask(PluginBase.INSTANCE, run);
+		return future;
+	}
+
+	/**
+	 * Set how many times one sender can run this command at once
+	 * @param maxConcurrentPerSender The maximum number of runs in progress per sender, defaults to 1
+	 */
+	protected void setMaxConcurrentPerSender(int maxConcurrentPerSender) {
+		if (maxConcurrentPerSender < 1) throw new IllegalArgumentException("Max concurrent runs must be at least 1");
+		this.maxConcurrentPerSender = maxConcurrentPerSender;
+	}
+
+	/**
+	 * Get the number of runs of this command in progress
+	 * @return The number of runs that were started and have not finished yet
+	 */
+	public int getRunningCount() {
+		int total = 0;
+		for (int count : running.values()) total += count;
+		return total;
+	}
+}
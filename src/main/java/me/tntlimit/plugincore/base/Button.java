@@ -0,0 +1,98 @@
+package me.tntlimit.plugincore.base;
+
+import me.tntlimit.plugincore.util.Cooldown;
+import org.bukkit.entity.Player;
+import org.bukkit.event.inventory.ClickType;
+import org.bukkit.event.inventory.InventoryClickEvent;
+
+import java.time.Duration;
+import java.util.EnumSet;
+
+
+/**
+ * A clickable slot of a {@link GUIBase}, created with {@link GUIBase#setButton(int, org.bukkit.inventory.ItemStack, Handler)}
+ * when rendering, together with its item:
+ * <pre>
+ * setButton(13, confirmItem, (e, player) -> confirm(player))
+ *     .clickTypes(ClickType.LEFT, ClickType.RIGHT)
+ *     .debounce(500);
+ * </pre>
+ * Clicks are dispatched by slot, so a GUI needs no if chains over slot numbers.
+ * Clicks of other types and repeated clicks within the debounce time are dropped before the handler runs.
+ * <br><br>
+ * Setting a button in the same slot again, for example when re-rendering, reuses it,
+ * so clicks made before the re-render still count towards the debounce time.
+ */
+public final class Button {
+	private Handler handler;
+	private EnumSet<ClickType> clickTypes; // null to accept every click type
+	private Cooldown debounce; // Kept across re-renders, null until debounced
+	private long debounceMillis;
+	private boolean debounced;
+
+
+	Button(Handler handler) {
+		this.handler = handler;
+	}
+
+	/**
+	 * Called when the slot is set again, the filters must be declared again but the debounce state is kept
+	 */
+	void reset(Handler handler) {
+		this.handler = handler;
+		this.clickTypes = null;
+		this.debounced = false;
+	}
+
+	/**
+	 * Only run the handler for some click types, other clicks are ignored
+	 *
+	 * @param first A click type to accept
+	 * @param rest More click types to accept
+	 * @return This button
+	 */
+	public Button clickTypes(ClickType first, ClickType... rest) {
+		this.clickTypes = EnumSet.of(first, rest);
+		return this;
+	}
+
+	/**
+	 * Ignore clicks of a player on this button until some time has passed since their last accepted click.
+	 * Useful for buttons that do expensive work or should not be triggered twice by a double click.
+	 *
+	 * @param millis The time in milliseconds, 0 to accept every click (default)
+	 * @return This button
+	 */
+	public Button debounce(long millis) {
+		if (millis > 0 && (debounce == null || debounceMillis != millis)) {
+			this.debounce = Cooldown.fixed(Duration.ofMillis(millis));
+			this.debounceMillis = millis;
+		}
+
+		this.debounced = millis > 0;
+		return this;
+	}
+
+	/**
+	 * Run the handler if the click passes the filters
+	 */
+	void click(InventoryClickEvent e, Player player) {
+		if (clickTypes != null && !clickTypes.contains(e.getClick())) return;
+		if (debounced && debounce.tryAcquire(player.getUniqueId()) != 0) return;
+
+		handler.onClick(e, player);
+	}
+
+
+	/**
+	 * Called when a button is clicked
+	 */
+	@FunctionalInterface
+	public interface Handler {
+		/**
+		 * @param event The InventoryClickEvent which was already cancelled
+		 * @param player The player who clicked the button
+		 */
+		void onClick(InventoryClickEvent event, Player player);
+	}
+}
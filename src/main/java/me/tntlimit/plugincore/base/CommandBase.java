@@ -1,24 +1,42 @@
 package me.tntlimit.plugincore.base;
 
+import me.tntlimit.plugincore.util.BoundedCache;
+import me.tntlimit.plugincore.util.Cooldown;
 import me.tntlimit.plugincore.util.I18n;
+import me.tntlimit.plugincore.util.LatencyHistogram;
+import me.tntlimit.plugincore.util.Metrics;
+import me.tntlimit.plugincore.util.OnlinePlayerIndex;
+import me.tntlimit.plugincore.util.PermissionCache;
+import me.tntlimit.plugincore.util.SubCommand;
 import me.tntlimit.plugincore.util.Utils;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandSender;
 import org.bukkit.command.PluginCommand;
 import org.bukkit.entity.Player;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 
 /**
  * The base class for all commands.
  * Any command you create should extend this class.
  * It will automatically register the command and tab complete.
+ * <br><br>
+ * Either override {@link #execute}, or declare subcommands with {@link #subcommand(String, String...)}
+ * and let the default {@link #execute} route to them.
  */
 public abstract class CommandBase {
 	private final String name;
 	private final boolean allowedInConsole;
 	private final String permission; // null if no permission required
+	private final LatencyHistogram executeTime;
+	private final LatencyHistogram tabCompleteTime;
+	private SubCommand root; // null unless subcommands are declared
+	private Cooldown cooldown; // null if no cooldown
+	private final BoundedCache<String, CachedCompletions> completionCache = new BoundedCache<>(512);
+	private long completionCacheMillis = 1000;
 
 
 	/**
@@ -43,6 +61,8 @@ public abstract class CommandBase {
 		this.name = name;
 		this.allowedInConsole = allowedInConsole;
 		this.permission = permission;
+		this.executeTime = Metrics.histogram("/" + name + ".execute");
+		this.tabCompleteTime = Metrics.histogram("/" + name + ".tabComplete");
 
 		PluginCommand cmd = PluginBase.INSTANCE.getCommand(name);
 		if (cmd == null) throw new IllegalArgumentException("Command " + name + " not found in plugin.yml");
@@ -53,39 +73,102 @@ public abstract class CommandBase {
 				return true;
 			}
 
-			if (permission != null && !sender.hasPermission(permission)) {
+			if (permission != null && !PermissionCache.has(sender, permission)) {
 				sender.sendMessage(tl("no-permission"));
 				return true;
 			}
 
-			execute(sender, command, label, args);
+			if (cooldown != null && root == null && sender instanceof Player) { // With subcommands it is taken in dispatch
+				long remaining = cooldown.tryAcquire(((Player) sender).getUniqueId());
+				if (remaining > 0) {
+					sender.sendMessage(cooldown.getMessage(remaining));
+					return true;
+				}
+			}
+
+			long start = Metrics.start();
+			try {
+				execute(sender, command, label, args);
+			} finally {
+				Metrics.stop(executeTime, start);
+			}
 			return true;
 		});
 
 		// Require permission to tab complete
 		cmd.setTabCompleter((sender, command, alias, args) -> {
 			if (!allowedInConsole && !(sender instanceof Player)) return Utils.EMPTY_LIST;
-			if (permission != null && !sender.hasPermission(permission)) return Utils.EMPTY_LIST;
+			if (permission != null && !PermissionCache.has(sender, permission)) return Utils.EMPTY_LIST;
 
-			return tabComplete(sender, command, args);
+			long start = Metrics.start();
+			try {
+				return completeCached(sender, command, args);
+			} finally {
+				Metrics.stop(tabCompleteTime, start);
+			}
 		});
 	}
 
 	/**
 	 * Called when the command is executed.
 	 * Only called after checks pass (console, permission)
+	 * By default this routes to the subcommands declared with {@link #subcommand(String, String...)}.
+	 * A command that declares none and does not override this logs a warning and tells the sender an error occurred.
 	 *
 	 * @param sender The sender of the command (player or console)
 	 * @param command The command object
 	 * @param label The alias used to execute the command
 	 * @param args The arguments passed to the command
 	 */
-	public abstract void execute(CommandSender sender, Command command, String label, String[] args);
+	public void execute(CommandSender sender, Command command, String label, String[] args) {
+		if (root != null) {
+			root.dispatch(sender, label, args, cooldown);
+			return;
+		}
+
+		PluginBase.INSTANCE.getLogger().warning("Command " + name + " declares no subcommands and does not override execute");
+		sender.sendMessage(tl("command-error"));
+	}
+
+	/**
+	 * Declare a subcommand, routed to by the default {@link #execute}
+	 *
+	 * @param name The name of the subcommand
+	 * @param aliases Other names for the subcommand
+	 * @return The subcommand, to declare its arguments, permission and handler on
+	 * @see SubCommand
+	 */
+	protected SubCommand subcommand(String name, String... aliases) {
+		return root().child(name, aliases);
+	}
+
+	boolean hasSubcommands() {
+		return root != null;
+	}
+
+	/**
+	 * Route to the declared subcommands like the default {@link #execute}, running the handler through an executor
+	 * @return True if the handler was handed to the executor
+	 */
+	boolean dispatch(CommandSender sender, String label, String[] args, Executor executor) {
+		return root.dispatch(sender, label, args, cooldown, executor);
+	}
+
+	/**
+	 * Get the root of the subcommand tree, used to declare what happens when no subcommand is given
+	 * @return The root subcommand
+	 */
+	protected SubCommand root() {
+		if (root == null) root = new SubCommand(name);
+		return root;
+	}
 
 	/**
 	 * Called when the command is tab completed.
 	 * Only called after checks pass (console, permission)
-	 * Note: By default, the first argument is tab completed as a username, and the rest are blank, unless overridden.
+	 * Results are cached per sender for a short time, see {@link #setCompletionCacheMillis(long)}.
+	 * Note: By default, declared subcommands and their arguments are completed. Without subcommands the first argument
+	 * is tab completed as a username from the {@link OnlinePlayerIndex}, and the rest are blank, unless overridden.
 	 * Note: Bukkit counts arguments weirdly, be careful.
 	 *
 	 * @param sender The sender who tab completed the command (player or console)
@@ -94,10 +177,49 @@ public abstract class CommandBase {
 	 * @return A list of possible tab completions, or null to use the default Bukkit tab completion (username)
 	 */
 	public List<String> tabComplete(CommandSender sender, Command command, String[] args) {
-		if (args.length == 1) return null; // By default, tab complete first arg as username unless overridden
+		if (root != null) return root.complete(sender, args);
+		if (args.length == 1) return OnlinePlayerIndex.complete(sender, args[0]); // By default, tab complete first arg as username unless overridden
 		return Utils.EMPTY_LIST;
 	}
 
+	private List<String> completeCached(CommandSender sender, Command command, String[] args) {
+		if (completionCacheMillis <= 0) return tabComplete(sender, command, args);
+
+		String key = sender.getName() + ' ' + String.join(" ", args);
+		long now = System.currentTimeMillis();
+		CachedCompletions cached = completionCache.get(key);
+		if (cached != null && now - cached.time < completionCacheMillis)
+			return cached.completions.isEmpty() ? Utils.EMPTY_LIST : new ArrayList<>(cached.completions);
+
+		List<String> completions = tabComplete(sender, command, args);
+		if (completions != null) completionCache.put(key, new CachedCompletions(now, new ArrayList<>(completions)));
+		return completions;
+	}
+
+	/**
+	 * Set how long tab completions are cached per sender.
+	 * Clients often ask for the same completions several times in a row.
+	 *
+	 * @param completionCacheMillis The time in milliseconds, 0 to disable caching. Defaults to 1000.
+	 */
+	protected void setCompletionCacheMillis(long completionCacheMillis) {
+		this.completionCacheMillis = completionCacheMillis;
+	}
+
+	/**
+	 * Set a cooldown or rate limit on the whole command.
+	 * Players are checked after the permission check, the console is never limited.
+	 * With subcommands only successful runs count, a use is taken once the arguments were parsed,
+	 * like {@link SubCommand#cooldown(Cooldown)}. Otherwise a use is taken before {@link #execute} is called.
+	 * <br><br>
+	 * Use {@link SubCommand#cooldown(Cooldown)} to limit a single subcommand instead.
+	 *
+	 * @param cooldown The cooldown, or null to remove it
+	 */
+	protected void setCooldown(Cooldown cooldown) {
+		this.cooldown = cooldown;
+	}
+
 	/**
 	 * Translates a key from the language file.
 	 * Shorthand for {@link I18n#format}
@@ -122,4 +244,15 @@ public abstract class CommandBase {
 	public String getPermission() {
 		return permission;
 	}
+
+
+	private static final class CachedCompletions {
+		private final long time;
+		private final List<String> completions;
+
+		private CachedCompletions(long time, List<String> completions) {
+			this.time = time;
+			this.completions = completions;
+		}
+	}
 }
@@ -0,0 +1,28 @@
+package me.tntlimit.plugincore.base;
+
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.server.PluginDisableEvent;
+
+import java.util.logging.Level;
+
+
+/**
+ * Runs the hooks added through {@link PluginBase#addDisableHook(Runnable)} when the plugin is disabled
+ */
+final class DisableListener implements Listener {
+
+	@EventHandler(priority = EventPriority.MONITOR)
+	public void onPluginDisable(PluginDisableEvent e) {
+		if (e.getPlugin() != PluginBase.INSTANCE) return;
+
+		for (Runnable hook : PluginBase.INSTANCE.disableHooks) {
+			try {
+				hook.run();
+			} catch (Exception ex) {
+				PluginBase.INSTANCE.getLogger().log(Level.WARNING, "Error while disabling", ex);
+			}
+		}
+	}
+}
@@ -1,25 +1,45 @@
 package me.tntlimit.plugincore.base;
 
-import org.bukkit.Bukkit;
+import me.tntlimit.plugincore.util.Metrics;
+import me.tntlimit.plugincore.util.TickScheduler;
 import org.bukkit.ChatColor;
 import org.bukkit.entity.Player;
-import org.bukkit.event.EventHandler;
-import org.bukkit.event.Listener;
 import org.bukkit.event.inventory.InventoryClickEvent;
 import org.bukkit.event.inventory.InventoryDragEvent;
 import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
 
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+
 
 /**
  * The base class for GUIs.
- * This class handles the inventory creation and event registration.
+ * This class handles the inventory creation, events are routed to it by a single shared listener.
  * Click/drag events are cancelled by default.
+ * <br><br>
+ * Clicks can be handled per slot with {@link #setButton(int, ItemStack, Button.Handler)},
+ * slots without a button are passed to {@link #onInventoryClick(InventoryClickEvent, Player, int)}.
+ * <br><br>
+ * A GUI is released automatically once its viewer closes it, logs out or the plugin is disabled.
+ * Override {@link #onOpen(Player)} and {@link #onClose(Player)} to hook into this lifecycle.
+ * <br><br>
+ * For menus that look the same for every player, use a {@link SharedGUI} instead.
  */
-public abstract class GUIBase implements Listener {
+public abstract class GUIBase {
 	private final int size;
 	private final Player viewer;
+	private final GUIHolder holder;
+	private final boolean pooled;
 	protected final Inventory inventory;
+	private final ItemStack[] rendered; // Last item written to each slot through setItem
+	private Button[] buttons; // null until a button is set
+	private DynamicSlot[] dynamicSlots; // null until a dynamic slot is declared
+	private int dynamicSlotCount;
+	boolean open; // Managed by GUIListener
+	boolean refreshQueued; // Managed by GUIRefresher
 
 
 	/**
@@ -30,41 +50,105 @@ public abstract class GUIBase implements Listener {
 	 * @param title The title of the GUI container (Color codes are supported)
 	 */
 	public GUIBase(int size, Player viewer, String title) {
+		this(size, viewer, title, false);
+	}
+
+	/**
+	 * Creates a new GUI
+	 *
+	 * @param size The size of the inventory in slots <b>(Must be a multiple of 9)</b>
+	 * @param viewer The player who will be viewing the GUI
+	 * @param title The title of the GUI container (Color codes are supported)
+	 * @param pooled Whether to reuse an inventory with the same size and title from a pool instead of creating one.
+	 *               The inventory is cleared and returned to the pool once the GUI is closed,
+	 *               so a pooled GUI <b>must not</b> be displayed again after it has been closed.
+	 */
+	public GUIBase(int size, Player viewer, String title, boolean pooled) {
 		this.size = size;
 		this.viewer = viewer;
-		this.inventory = Bukkit.createInventory(null, size, ChatColor.translateAlternateColorCodes('&', title));
+		this.pooled = pooled;
 
-		PluginBase.INSTANCE.getServer().getPluginManager().registerEvents(this, PluginBase.INSTANCE);
+		String coloredTitle = ChatColor.translateAlternateColorCodes('&', title);
+		GUIListener listener = PluginBase.INSTANCE.guiListener(); // Registers the shared listener on the first GUI
+		this.holder = pooled ? listener.getPool().acquire(size, coloredTitle) : new GUIHolder(size, coloredTitle);
+		this.holder.gui = this;
+		this.inventory = holder.getInventory();
+		this.rendered = new ItemStack[size];
 	}
 
 	/**
-	 * Displays the GUI to the viewer on the next tick
+	 * Displays the GUI to the viewer on a later tick, through the {@link PluginBase#scheduler()} so that
+	 * opening many GUIs at once is spread over several ticks.
 	 * This is to fix some bugs with the inventory not opening due to other plugins
 	 * You may call this method, or call {@link #display()} directly
 	 */
 	public void displayAsync() {
-		Bukkit.getScheduler().runTaskLater(PluginBase.INSTANCE, this::display, 1);
+		PluginBase.scheduler().run(this::displayTimed, TickScheduler.Priority.HIGH);
 	}
 
 	/**
 	 * Called when the GUI is displayed to the viewer
 	 * This method should be used to set the contents of the inventory
+	 * <br><br>
+	 * The <b>display</b> histogram of {@link Metrics} times calls made through {@link #displayAsync()} and
+	 * {@link SharedGUI#open(Player)}, calling this directly is not timed.
 	 */
 	public abstract void display();
 
-	@EventHandler
+	/**
+	 * Calls {@link #display()}, recording its time in the <b>display</b> histogram
+	 */
+	final void displayTimed() {
+		long start = Metrics.start();
+		try {
+			display();
+		} finally {
+			Metrics.stop(getClass(), "display", start);
+		}
+	}
+
+	/**
+	 * Called when a player opens this GUI.
+	 * Reopening the inventory while it is already open (for example when changing page) does not call this again.
+	 *
+	 * @param player The player who opened the GUI
+	 */
+	protected void onOpen(Player player) { }
+
+	/**
+	 * Called when a player stops viewing this GUI, either by closing it, opening another inventory,
+	 * logging out or the plugin being disabled.
+	 * Once the last viewer is gone the GUI is released and will no longer receive events.
+	 *
+	 * @param player The player who closed the GUI
+	 */
+	protected void onClose(Player player) { }
+
+	/**
+	 * Called by the shared GUI listener when this GUI's inventory is clicked
+	 */
 	public void onInventoryClick(InventoryClickEvent e) {
-		if (!e.getInventory().equals(inventory)) return;
 		e.setCancelled(true);
 
-		ItemStack clickedItem = e.getCurrentItem();
-		if (clickedItem == null || clickedItem.getType().isAir()) return;
+		int slot = e.getRawSlot();
+		Button button = buttons != null && slot >= 0 && slot < size ? buttons[slot] : null;
+		if (button == null) {
+			ItemStack clickedItem = e.getCurrentItem();
+			if (clickedItem == null || clickedItem.getType().isAir()) return;
+		}
 
-		this.onInventoryClick(e, (Player) e.getWhoClicked(), e.getRawSlot());
+		long start = Metrics.start();
+		try {
+			if (button != null) button.click(e, (Player) e.getWhoClicked());
+			else this.onInventoryClick(e, (Player) e.getWhoClicked(), slot);
+		} finally {
+			Metrics.stop(getClass(), "click", start);
+		}
 	}
 
 	/**
-	 * Called when the viewer clicks on a valid item in the GUI.
+	 * Called when the viewer clicks on a valid item in a slot without a button.
+	 * Does nothing by default.
 	 * <br><br>
 	 * Safe to assume that the correct inventory is being clicked on, and that
 	 * the item clicked is not null.
@@ -75,12 +159,203 @@ public abstract class GUIBase implements Listener {
 	 * @param player The player who clicked the item
 	 * @param slot The slot/index the item was in
 	 */
-	public abstract void onInventoryClick(InventoryClickEvent event, Player player, int slot);
+	public void onInventoryClick(InventoryClickEvent event, Player player, int slot) { }
 
-	@EventHandler
+	/**
+	 * Called by the shared GUI listener when items are dragged in this GUI's inventory
+	 */
 	public void onInventoryDrag(InventoryDragEvent e) {
-		if (e.getInventory().equals(inventory))
-			e.setCancelled(true);
+		e.setCancelled(true);
+	}
+
+	/**
+	 * Sets the item in a slot only if it differs from the item last set in that slot through this method.
+	 * Unchanged slots are not written, so no update is sent to the viewer for them.
+	 * <br><br>
+	 * Items are compared by reference first and then with {@link ItemStack#equals(Object)},
+	 * so do not modify an item after passing it here, set a new one instead.
+	 * If you write to {@link #inventory} directly, call {@link #resetRendered()} afterwards.
+	 *
+	 * @param slot The slot to set
+	 * @param item The item to set, or null to clear the slot
+	 * @return True if the slot was written
+	 */
+	protected boolean setItem(int slot, ItemStack item) {
+		ItemStack current = rendered[slot];
+		if (current == item || (current != null && current.equals(item))) return false;
+
+		rendered[slot] = item;
+		inventory.setItem(slot, item);
+		return true;
+	}
+
+	/**
+	 * Set the item in a slot and the handler to run when it is clicked, replacing the handler of any button already
+	 * in that slot. The button is reused so its debounce state survives re-rendering.
+	 * The item is set through {@link #setItem(int, ItemStack)}.
+	 *
+	 * @param slot The slot
+	 * @param item The item to show
+	 * @param handler Called when the slot is clicked
+	 * @return The button, to only accept some click types or debounce clicks
+	 */
+	protected Button setButton(int slot, ItemStack item, Button.Handler handler) {
+		if (buttons == null) buttons = new Button[size];
+
+		Button button = buttons[slot];
+		if (button == null) buttons[slot] = button = new Button(handler);
+		else button.reset(handler);
+
+		setItem(slot, item);
+		return button;
+	}
+
+	/**
+	 * Remove the button in a slot, the item stays.
+	 * Clicks on the slot are passed to {@link #onInventoryClick(InventoryClickEvent, Player, int)} again.
+	 *
+	 * @param slot The slot
+	 */
+	protected void removeButton(int slot) {
+		if (buttons != null) buttons[slot] = null;
+	}
+
+	/**
+	 * Remove all buttons, the items stay
+	 */
+	protected void clearButtons() {
+		if (buttons != null) Arrays.fill(buttons, null);
+	}
+
+	/**
+	 * Get the button in a slot
+	 * @param slot The slot
+	 * @return The button, or null if the slot has none
+	 */
+	public Button getButton(int slot) {
+		return buttons != null ? buttons[slot] : null;
+	}
+
+	/**
+	 * Declare a slot showing a live value, such as a balance or a timer.
+	 * The item is computed now and then again every interval while the GUI is open, or when marked dirty with
+	 * {@link #markDirty(int)}. All open GUIs are refreshed by one shared loop within a time budget per tick,
+	 * and only items that changed are written (see {@link #setItem(int, ItemStack)}).
+	 * <br><br>
+	 * Declaring a slot again replaces it. Must be called on the main thread.
+	 *
+	 * @param slot The slot
+	 * @param intervalTicks How often to compute the item in ticks, 0 to only compute it when marked dirty
+	 * @param item Computes the item, called on the main thread
+	 * @see #setRefreshBudget(long, TimeUnit)
+	 */
+	protected void dynamicSlot(int slot, int intervalTicks, Supplier<ItemStack> item) {
+		if (intervalTicks < 0) throw new IllegalArgumentException("Interval must not be negative");
+		if (dynamicSlots == null) dynamicSlots = new DynamicSlot[size];
+		if (dynamicSlots[slot] == null) dynamicSlotCount++;
+
+		GUIRefresher refresher = PluginBase.INSTANCE.guiListener().getRefresher();
+		DynamicSlot dynamicSlot = new DynamicSlot(item, intervalTicks);
+		dynamicSlots[slot] = dynamicSlot;
+		refresh(slot, dynamicSlot, refresher.getTick());
+
+		if (open) refresher.add(this);
+	}
+
+	/**
+	 * Stop refreshing a slot, the item last shown stays
+	 * @param slot The slot
+	 */
+	protected void removeDynamicSlot(int slot) {
+		if (dynamicSlots == null || dynamicSlots[slot] == null) return;
+
+		dynamicSlots[slot] = null;
+		dynamicSlotCount--;
+	}
+
+	/**
+	 * Compute the item of a dynamic slot again on the next tick
+	 * @param slot The slot
+	 */
+	protected void markDirty(int slot) {
+		if (dynamicSlots != null && dynamicSlots[slot] != null) dynamicSlots[slot].dirty = true;
+	}
+
+	/**
+	 * Compute the items of all dynamic slots again on the next tick
+	 */
+	protected void markAllDirty() {
+		if (dynamicSlots == null) return;
+
+		for (DynamicSlot dynamicSlot : dynamicSlots)
+			if (dynamicSlot != null) dynamicSlot.dirty = true;
+	}
+
+	boolean hasDynamicSlots() {
+		return dynamicSlotCount > 0;
+	}
+
+	/**
+	 * Called by the shared refresh loop, computes the dynamic slots that are dirty or due
+	 */
+	void refreshDynamicSlots(long tick) {
+		for (int slot = 0; slot < dynamicSlots.length; slot++) {
+			DynamicSlot dynamicSlot = dynamicSlots[slot];
+			if (dynamicSlot != null && (dynamicSlot.dirty || (dynamicSlot.interval > 0 && tick >= dynamicSlot.next)))
+				refresh(slot, dynamicSlot, tick);
+		}
+	}
+
+	private void refresh(int slot, DynamicSlot dynamicSlot, long tick) {
+		dynamicSlot.dirty = false;
+		dynamicSlot.next = tick + dynamicSlot.interval;
+
+		try {
+			setItem(slot, dynamicSlot.item.get());
+		} catch (Exception e) {
+			PluginBase.INSTANCE.getLogger().log(Level.WARNING, "Error while refreshing slot " + slot + " of " + getClass().getSimpleName(), e);
+			removeDynamicSlot(slot);
+		}
+	}
+
+	/**
+	 * Set the time dynamic slots of all GUIs may take to refresh each tick,
+	 * GUIs that do not fit are refreshed on the next tick
+	 *
+	 * @param budget The budget, defaults to 1ms
+	 */
+	public static void setRefreshBudget(long budget, TimeUnit unit) {
+		PluginBase.INSTANCE.guiListener().getRefresher().setBudget(budget, unit);
+	}
+
+	/**
+	 * Forget what was last set through {@link #setItem(int, ItemStack)} so every slot is written again next time
+	 */
+	protected void resetRendered() {
+		Arrays.fill(rendered, null);
+	}
+
+	/**
+	 * Check if the viewer currently has this GUI's inventory open
+	 * @return True if the viewer is looking at this GUI
+	 */
+	public boolean isViewing() {
+		return inventory.equals(viewer.getOpenInventory().getTopInventory());
+	}
+
+	/**
+	 * Called once the GUI has no viewers left
+	 */
+	void release() {
+		if (pooled) PluginBase.INSTANCE.guiListener().getPool().release(holder);
+	}
+
+	/**
+	 * Get the number of GUIs that are currently open
+	 * @return The number of open GUIs
+	 */
+	public static int getOpenCount() {
+		return PluginBase.INSTANCE.guiListener().getOpenCount();
 	}
 
 	/**
@@ -91,6 +366,9 @@ public abstract class GUIBase implements Listener {
 		return size;
 	}
 
+	/**
+	 * @return The player the GUI was created for, null for a {@link SharedGUI}
+	 */
 	public Player getViewer() {
 		return viewer;
 	}
@@ -98,4 +376,25 @@ public abstract class GUIBase implements Listener {
 	public Inventory getInventory() {
 		return inventory;
 	}
+
+	public boolean isOpen() {
+		return open;
+	}
+
+	public boolean isPooled() {
+		return pooled;
+	}
+
+
+	private static final class DynamicSlot {
+		private final Supplier<ItemStack> item;
+		private final int interval;
+		private long next; // Tick of the next refresh
+		private boolean dirty;
+
+		private DynamicSlot(Supplier<ItemStack> item, int interval) {
+			this.item = item;
+			this.interval = interval;
+		}
+	}
 }
@@ -0,0 +1,35 @@
+package me.tntlimit.plugincore.base;
+
+import org.bukkit.Bukkit;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.InventoryHolder;
+
+
+/**
+ * Holder of a GUI inventory, used by {@link GUIListener} to find the GUI an inventory belongs to.
+ * The GUI is not the holder itself so pooled inventories can be handed over to a new GUI.
+ */
+final class GUIHolder implements InventoryHolder {
+	private final Inventory inventory;
+	private final String key; // Pool key, size and title
+	GUIBase gui; // null while sitting in the pool
+
+
+	GUIHolder(int size, String title) {
+		this.inventory = Bukkit.createInventory(this, size, title);
+		this.key = key(size, title);
+	}
+
+	static String key(int size, String title) {
+		return size + ":" + title;
+	}
+
+	String getKey() {
+		return key;
+	}
+
+	@Override
+	public Inventory getInventory() {
+		return inventory;
+	}
+}
@@ -0,0 +1,137 @@
+package me.tntlimit.plugincore.base;
+
+import org.bukkit.Bukkit;
+import org.bukkit.entity.HumanEntity;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.inventory.InventoryCloseEvent;
+import org.bukkit.event.inventory.InventoryDragEvent;
+import org.bukkit.event.inventory.InventoryOpenEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.server.PluginDisableEvent;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.InventoryHolder;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+
+/**
+ * The single listener that routes inventory events to {@link GUIBase} instances and manages their lifecycle.
+ * Registered once by {@link PluginBase} the first time a GUI is created.
+ * <br><br>
+ * GUIs are only tracked while they are open, keyed on the identity of the open inventory.
+ * Clicks and drags cost one map lookup regardless of how many GUIs exist.
+ * A GUI is released once its last viewer closes it, logs out or the plugin is disabled.
+ */
+final class GUIListener implements Listener {
+	private final Map<Inventory, OpenGUI> open = new IdentityHashMap<>();
+	private final InventoryPool pool = new InventoryPool();
+	private final GUIRefresher refresher = new GUIRefresher();
+
+
+	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+	public void onInventoryOpen(InventoryOpenEvent e) {
+		Inventory inventory = e.getInventory();
+		OpenGUI openGUI = open.get(inventory);
+
+		if (openGUI == null) {
+			InventoryHolder holder = inventory.getHolder();
+			if (!(holder instanceof GUIHolder) || ((GUIHolder) holder).gui == null) return;
+
+			openGUI = new OpenGUI(((GUIHolder) holder).gui);
+			open.put(inventory, openGUI);
+			openGUI.gui.open = true;
+			if (openGUI.gui.hasDynamicSlots()) refresher.add(openGUI.gui);
+		}
+
+		// Reopening the same inventory (e.g. changing page) is not a new open
+		if (openGUI.viewers.add(e.getPlayer().getUniqueId())) openGUI.gui.onOpen((Player) e.getPlayer());
+	}
+
+	@EventHandler
+	public void onInventoryClick(InventoryClickEvent e) {
+		OpenGUI openGUI = open.get(e.getInventory());
+		if (openGUI != null) openGUI.gui.onInventoryClick(e);
+	}
+
+	@EventHandler
+	public void onInventoryDrag(InventoryDragEvent e) {
+		OpenGUI openGUI = open.get(e.getInventory());
+		if (openGUI != null) openGUI.gui.onInventoryDrag(e);
+	}
+
+	@EventHandler
+	public void onInventoryClose(InventoryCloseEvent e) {
+		Inventory inventory = e.getInventory();
+		if (!open.containsKey(inventory)) return;
+
+		// Opening an inventory fires a close event for the current one first, so wait a tick to see if it was reopened
+		Player player = (Player) e.getPlayer();
+		Bukkit.getScheduler().runTask(PluginBase.INSTANCE, () -> {
+			if (!player.isOnline() || player.getOpenInventory().getTopInventory() != inventory) close(inventory, player);
+		});
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR)
+	public void onPlayerQuit(PlayerQuitEvent e) {
+		close(e.getPlayer().getOpenInventory().getTopInventory(), e.getPlayer());
+	}
+
+	@EventHandler
+	public void onPluginDisable(PluginDisableEvent e) {
+		if (e.getPlugin() != PluginBase.INSTANCE) return;
+
+		for (Inventory inventory : new ArrayList<>(open.keySet())) {
+			for (HumanEntity viewer : new ArrayList<>(inventory.getViewers())) {
+				viewer.closeInventory();
+				if (viewer instanceof Player) close(inventory, (Player) viewer);
+			}
+		}
+
+		open.clear();
+		pool.clear();
+		refresher.clear();
+	}
+
+	private void close(Inventory inventory, Player player) {
+		OpenGUI openGUI = open.get(inventory);
+		if (openGUI == null || !openGUI.viewers.remove(player.getUniqueId())) return;
+
+		openGUI.gui.onClose(player);
+		if (!openGUI.viewers.isEmpty()) return;
+
+		open.remove(inventory);
+		openGUI.gui.open = false;
+		openGUI.gui.release();
+	}
+
+	InventoryPool getPool() {
+		return pool;
+	}
+
+	GUIRefresher getRefresher() {
+		return refresher;
+	}
+
+	int getOpenCount() {
+		return open.size();
+	}
+
+
+	private static final class OpenGUI {
+		private final GUIBase gui;
+		private final Set<UUID> viewers = new HashSet<>(2);
+
+		private OpenGUI(GUIBase gui) {
+			this.gui = gui;
+		}
+	}
+}
@@ -0,0 +1,75 @@
+package me.tntlimit.plugincore.base;
+
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * The single update loop for the dynamic slots of open GUIs, see {@link GUIBase#dynamicSlot}.
+ * Owned by {@link GUIListener}, the task is started the first time a GUI with dynamic slots is opened.
+ * <br><br>
+ * Every tick GUIs are refreshed round robin until the time budget is used up,
+ * GUIs that did not fit are refreshed first on the next tick. Closed GUIs are dropped when they come up.
+ */
+final class GUIRefresher implements Runnable {
+	private final ArrayDeque<GUIBase> queue = new ArrayDeque<>();
+	private long budget = TimeUnit.MILLISECONDS.toNanos(1);
+	private long tick;
+	private BukkitTask task;
+
+
+	/**
+	 * Start refreshing a GUI until it is closed
+	 */
+	void add(GUIBase gui) {
+		if (gui.refreshQueued) return;
+
+		gui.refreshQueued = true;
+		queue.add(gui);
+		if (task == null) task = PluginBase.INSTANCE.getServer().getScheduler().runTaskTimer(PluginBase.INSTANCE, this, 1, 1);
+	}
+
+	@Override
+	public void run() {
+		tick++;
+		long deadline = System.nanoTime() + budget;
+
+		// Each GUI is visited at most once per tick, those left over go first next tick
+		for (int remaining = queue.size(); remaining > 0; remaining--) {
+			GUIBase gui = queue.peek();
+			if (!gui.open || !gui.hasDynamicSlots()) {
+				queue.poll();
+				gui.refreshQueued = false;
+				continue;
+			}
+
+			if (System.nanoTime() - deadline >= 0) break;
+
+			queue.poll();
+			queue.add(gui);
+			gui.refreshDynamicSlots(tick);
+		}
+	}
+
+	void setBudget(long budget, TimeUnit unit) {
+		if (budget <= 0) throw new IllegalArgumentException("Budget must be positive");
+		this.budget = unit.toNanos(budget);
+	}
+
+	long getTick() {
+		return tick;
+	}
+
+	int size() {
+		return queue.size();
+	}
+
+	void clear() {
+		for (GUIBase gui : queue) gui.refreshQueued = false;
+		queue.clear();
+		if (task != null) task.cancel();
+		task = null;
+	}
+}
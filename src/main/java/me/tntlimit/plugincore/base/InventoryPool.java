@@ -0,0 +1,40 @@
+package me.tntlimit.plugincore.base;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+
+
+/**
+ * Pool of GUI inventories keyed by size and title.
+ * Used by GUIs created with pooling enabled so busy menus do not create a new inventory every time they are opened.
+ */
+final class InventoryPool {
+	private static final int MAX_PER_KEY = 16;
+	private final HashMap<String, ArrayDeque<GUIHolder>> free = new HashMap<>();
+
+
+	synchronized GUIHolder acquire(int size, String title) {
+		ArrayDeque<GUIHolder> holders = free.get(GUIHolder.key(size, title));
+		GUIHolder holder = holders == null ? null : holders.poll();
+
+		return holder != null ? holder : new GUIHolder(size, title);
+	}
+
+	synchronized void release(GUIHolder holder) {
+		holder.gui = null;
+		holder.getInventory().clear();
+
+		ArrayDeque<GUIHolder> holders = free.computeIfAbsent(holder.getKey(), k -> new ArrayDeque<>());
+		if (holders.size() < MAX_PER_KEY) holders.push(holder);
+	}
+
+	synchronized int size() {
+		int size = 0;
+		for (ArrayDeque<GUIHolder> holders : free.values()) size += holders.size();
+		return size;
+	}
+
+	synchronized void clear() {
+		free.clear();
+	}
+}
@@ -1,12 +1,16 @@
 package me.tntlimit.plugincore.base;
 
+import me.tntlimit.plugincore.util.Cooldown;
 import me.tntlimit.plugincore.util.I18n;
+import me.tntlimit.plugincore.util.Metrics;
+import me.tntlimit.plugincore.util.PermissionCache;
 import me.tntlimit.plugincore.util.Utils;
+import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.entity.Player;
 import org.bukkit.event.player.PlayerInteractAtEntityEvent;
 import org.bukkit.event.player.PlayerInteractEvent;
-import org.bukkit.inventory.EquipmentSlot;
 import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
 
 
 /**
@@ -17,19 +21,38 @@ import org.bukkit.inventory.ItemStack;
  *     The {@link #onUse(PlayerInteractEvent)} method is called when the item is right-clicked.
  *     The {@link #onRightClickPlayer(PlayerInteractAtEntityEvent)} method is called when the item is right-clicked on a player.
  * </p>
+ * Items are tagged with their config key, and events are routed to them by a single shared listener,
+ * so there is no need to register a listener for each item.
+ * Creating an item with the id (config key) of an existing one replaces it, for example when rebuilding items after a
+ * config reload. Call {@link #unregister()} to stop routing events to an item.
+ * <br><br>
+ * Stacks given to players before items were tagged carry no tag and are not recognized,
+ * replace them with {@link #getItem()}.
  */
 @Deprecated
 public abstract class ItemBase {
+	private final String id;
 	private final ItemStack item;
 	private final int slot;
 	private final String permission;
 	private boolean enabled;
+	private Cooldown cooldown; // null if no cooldown
 
 
 	public ItemBase(String key, int defaultSlot) {
-		this.item = Utils.getItemFromConfig(key + ".item");
+		ItemListener listener = PluginBase.INSTANCE.itemListener();
+		ItemStack item = Utils.getItemFromConfig(key + ".item").clone(); // The invalid item default is shared
+		ItemMeta meta = item.getItemMeta();
+		if (meta != null) {
+			listener.tag(meta, key);
+			item.setItemMeta(meta);
+		}
+
+		this.id = key;
+		this.item = item;
 
-		int slot = PluginBase.config().getInt(key + "item.slot", defaultSlot);
+		ConfigurationSection section = PluginBase.config().getConfigurationSection(key);
+		int slot = section != null ? section.getInt("item.slot", defaultSlot) : defaultSlot;
 		if (slot < 0 || slot > 8) {
 			PluginBase.INSTANCE.getLogger().warning("Invalid slot for " + key + ": " + slot);
 			slot = defaultSlot;
@@ -37,46 +60,101 @@ public abstract class ItemBase {
 
 		this.slot = slot;
 		this.permission = /*"staffmode." + */key; //todo
-		this.enabled = PluginBase.config().getBoolean(key + ".enabled", true);
+		this.enabled = section == null || section.getBoolean("enabled", true);
+
+		listener.register(key, this);
 	}
 
-	public void onRightClick(PlayerInteractEvent event) {
-		if (event.getItem() == null || !isItemEqual(event.getItem())) return;
-		event.setCancelled(true);
+	/**
+	 * Stop routing events to this item, stacks of it are no longer recognized unless it is created again
+	 */
+	public void unregister() {
+		PluginBase.INSTANCE.itemListener().unregister(id, this);
+	}
 
-		if (isValid(event.getPlayer(), event.getItem())) this.onUse(event);
+	/**
+	 * Find the item an item stack was created from
+	 *
+	 * @param stack The item stack
+	 * @return The item, or null if the stack is not a custom item
+	 */
+	public static ItemBase get(ItemStack stack) {
+		return PluginBase.INSTANCE.itemListener().find(stack);
 	}
 
-	public void onInteractAtEntity(PlayerInteractAtEntityEvent event) {
-		if (event.getHand() != EquipmentSlot.HAND || !(event.getRightClicked() instanceof Player)) return;
+	/**
+	 * Items are now routed automatically by a shared listener, this does nothing so existing listeners calling it
+	 * do not use the item twice.
+	 */
+	@Deprecated
+	public void onRightClick(PlayerInteractEvent event) { }
+
+	/**
+	 * Items are now routed automatically by a shared listener, this does nothing so existing listeners calling it
+	 * do not use the item twice.
+	 */
+	@Deprecated
+	public void onInteractAtEntity(PlayerInteractAtEntityEvent event) { }
+
+	/**
+	 * Called by the shared item listener when this item is used
+	 */
+	void handleUse(PlayerInteractEvent event) {
+		event.setCancelled(true);
+		if (!canUse(event.getPlayer())) return;
+
+		long start = Metrics.start();
+		try {
+			this.onUse(event);
+		} finally {
+			Metrics.stop(getClass(), "onUse", start);
+		}
+	}
 
-		ItemStack item = event.getPlayer().getInventory().getItemInMainHand();
-		if (!this.isValid(event.getPlayer(), item)) return;
+	/**
+	 * Called by the shared item listener when a player is right-clicked with this item in the main hand
+	 */
+	void handleRightClickPlayer(PlayerInteractAtEntityEvent event) {
+		if (!canUse(event.getPlayer())) return;
 		event.setCancelled(true);
 
 		this.onRightClickPlayer(event);
 	}
 
 	protected boolean isValid(Player player, ItemStack item) {
-		if (item == null || !isItemEqual(item)) return false;
+		return isItemEqual(item) && canUse(player);
+	}
+
+	private boolean canUse(Player player) {
 		if (!this.isEnabled()) {
 			player.sendMessage(I18n.format("item.disabled"));
 			return false;
 		}
 
-		if (!player.hasPermission(this.permission)) {
+		if (!PermissionCache.has(player, this.permission)) {
 			player.sendMessage(I18n.format("item.no-permission"));
 			return false;
 		}
 
+		if (cooldown != null) {
+			long remaining = cooldown.tryAcquire(player.getUniqueId());
+			if (remaining > 0) {
+				player.sendMessage(cooldown.getMessage(remaining));
+				return false;
+			}
+		}
+
 		return true;
 	}
 
+	/**
+	 * Check if an item stack is this item, by its tag
+	 *
+	 * @param item The item stack
+	 * @return True if the stack was created from this item
+	 */
 	public boolean isItemEqual(ItemStack item) {
-		if (item == null || item.getItemMeta() == null) return false;
-		if (item.getAmount() != this.item.getAmount()) return false;
-		if (item.getMaxStackSize() != this.item.getMaxStackSize()) return false;
-		return item.isSimilar(this.item);
+		return get(item) == this;
 	}
 
 	public abstract void onUse(PlayerInteractEvent event);
@@ -87,6 +165,13 @@ public abstract class ItemBase {
 		return this.item.clone();
 	}
 
+	/**
+	 * @return The id of the item, its config key
+	 */
+	public String getId() {
+		return this.id;
+	}
+
 	public int getSlot() {
 		return this.slot;
 	}
@@ -102,4 +187,11 @@ public abstract class ItemBase {
 	protected void setEnabled(boolean enabled) {
 		this.enabled = enabled;
 	}
+
+	/**
+	 * @param cooldown The cooldown or rate limit on using the item, or null to remove it
+	 */
+	protected void setCooldown(Cooldown cooldown) {
+		this.cooldown = cooldown;
+	}
 }
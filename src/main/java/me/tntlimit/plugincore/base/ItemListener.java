@@ -0,0 +1,75 @@
+package me.tntlimit.plugincore.base;
+
+import org.bukkit.NamespacedKey;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerInteractAtEntityEvent;
+import org.bukkit.event.player.PlayerInteractEvent;
+import org.bukkit.inventory.EquipmentSlot;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.persistence.PersistentDataType;
+
+import java.util.HashMap;
+import java.util.Map;
+
+
+/**
+ * The single listener that routes interact events to {@link ItemBase} instances.
+ * Registered once by {@link PluginBase} the first time an item is created.
+ * <br><br>
+ * Items are tagged with their id in their persistent data container, so an event costs one tag read and one map lookup
+ * regardless of how many items exist. Items without meta are rejected before reading it.
+ */
+final class ItemListener implements Listener {
+	private final NamespacedKey key = new NamespacedKey(PluginBase.INSTANCE, "item");
+	private final Map<String, ItemBase> items = new HashMap<>();
+
+
+	/**
+	 * Tag an item with its id
+	 */
+	void tag(ItemMeta meta, String id) {
+		meta.getPersistentDataContainer().set(key, PersistentDataType.STRING, id);
+	}
+
+	/**
+	 * Route stacks tagged with an id to an item, replacing the item previously registered with that id
+	 */
+	void register(String id, ItemBase item) {
+		items.put(id, item);
+	}
+
+	/**
+	 * Stop routing stacks tagged with an id, if they are still routed to this item
+	 */
+	void unregister(String id, ItemBase item) {
+		items.remove(id, item);
+	}
+
+	/**
+	 * Find the item an item stack was created from
+	 * @return The item, or null if the stack is not a registered item
+	 */
+	ItemBase find(ItemStack stack) {
+		if (stack == null || !stack.hasItemMeta()) return null;
+
+		String id = stack.getItemMeta().getPersistentDataContainer().get(key, PersistentDataType.STRING);
+		return id != null ? items.get(id) : null;
+	}
+
+	@EventHandler
+	public void onInteract(PlayerInteractEvent e) {
+		ItemBase item = find(e.getItem());
+		if (item != null) item.handleUse(e);
+	}
+
+	@EventHandler
+	public void onInteractAtEntity(PlayerInteractAtEntityEvent e) {
+		if (e.getHand() != EquipmentSlot.HAND || !(e.getRightClicked() instanceof Player)) return;
+
+		ItemBase item = find(e.getPlayer().getInventory().getItemInMainHand());
+		if (item != null) item.handleRightClickPlayer(e);
+	}
+}
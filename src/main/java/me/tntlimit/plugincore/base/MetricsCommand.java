@@ -0,0 +1,92 @@
+package me.tntlimit.plugincore.base;
+
+import me.tntlimit.plugincore.util.ArgumentParser;
+import me.tntlimit.plugincore.util.CommandContext;
+import me.tntlimit.plugincore.util.LatencyHistogram;
+import me.tntlimit.plugincore.util.Metrics;
+import org.bukkit.ChatColor;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.logging.Level;
+
+
+/**
+ * An admin command to view the framework's {@link Metrics}.
+ * Add the command to your plugin.yml and create it in {@link PluginBase#onEnable()}:
+ * <pre>
+ * new MetricsCommand("pcmetrics", "myplugin.admin.metrics");
+ * </pre>
+ * Usage:<br>
+ * /&lt;command&gt; [count] - show the slowest handlers by total time<br>
+ * /&lt;command&gt; enable|disable - start or stop recording<br>
+ * /&lt;command&gt; reset - forget everything recorded<br>
+ * /&lt;command&gt; slow &lt;ms&gt; - log calls slower than a threshold, 0 to stop<br>
+ * /&lt;command&gt; export - write everything recorded to a CSV file in the plugin folder
+ */
+public class MetricsCommand extends CommandBase {
+	private static final int DEFAULT_SHOWN = 10;
+
+
+	/**
+	 * @param name The name of the command from plugin.yml
+	 * @param permission The permission required to use the command
+	 */
+	public MetricsCommand(String name, String permission) {
+		super(name, true, permission);
+
+		root().optionalArgument("count", ArgumentParser.integer(1, 100)).executes(this::show);
+		subcommand("enable").executes(ctx -> {
+			Metrics.enable();
+			ctx.reply(ChatColor.GREEN + "Metrics enabled");
+		});
+		subcommand("disable").executes(ctx -> {
+			Metrics.disable();
+			ctx.reply(ChatColor.GREEN + "Metrics disabled");
+		});
+		subcommand("reset").executes(ctx -> {
+			Metrics.reset();
+			ctx.reply(ChatColor.GREEN + "Metrics reset");
+		});
+		subcommand("slow").argument("ms", ArgumentParser.integer(0, 60_000)).executes(ctx -> {
+			int millis = ctx.get("ms");
+			Metrics.setSlowCallThreshold(millis);
+			ctx.reply(ChatColor.GREEN + (millis == 0 ? "No longer logging slow calls" : "Logging calls slower than " + millis + "ms"));
+		});
+		subcommand("export").executes(this::export);
+	}
+
+	private void show(CommandContext ctx) {
+		int count = ctx.get("count", DEFAULT_SHOWN);
+		List<LatencyHistogram> histograms = new ArrayList<>(Metrics.getHistograms().values());
+		histograms.removeIf(histogram -> histogram.getCount() == 0);
+		histograms.sort(Comparator.comparingLong(LatencyHistogram::getTotal).reversed());
+
+		ctx.reply(ChatColor.GOLD + "Metrics " + (Metrics.isEnabled() ? ChatColor.GREEN + "(enabled)" : ChatColor.RED + "(disabled)")
+				+ ChatColor.GRAY + " - slowest by total time, p50/p99/max in ms");
+		if (histograms.isEmpty()) {
+			ctx.reply(ChatColor.GRAY + "Nothing recorded yet");
+			return;
+		}
+
+		for (LatencyHistogram histogram : histograms.subList(0, Math.min(count, histograms.size()))) {
+			ctx.reply(String.format("%s%s %s%dx %s%.2f/%.2f/%.2f %s(%.0fms total)",
+					ChatColor.YELLOW, histogram.getName(), ChatColor.GRAY, histogram.getCount(), ChatColor.WHITE,
+					histogram.getPercentile(50) / 1e6, histogram.getPercentile(99) / 1e6, histogram.getMax() / 1e6,
+					ChatColor.GRAY, histogram.getTotal() / 1e6));
+		}
+	}
+
+	private void export(CommandContext ctx) {
+		try {
+			File file = Metrics.export();
+			ctx.reply(ChatColor.GREEN + "Metrics exported to " + file.getName());
+		} catch (IOException e) {
+			PluginBase.INSTANCE.getLogger().log(Level.WARNING, "Failed to export metrics", e);
+			ctx.reply(ChatColor.RED + "Failed to export metrics, see the console");
+		}
+	}
+}
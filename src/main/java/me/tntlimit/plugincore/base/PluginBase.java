@@ -1,7 +1,21 @@
 package me.tntlimit.plugincore.base;
 
+import me.tntlimit.plugincore.util.ConfigBinding;
+import me.tntlimit.plugincore.util.Preloader;
+import me.tntlimit.plugincore.util.TickScheduler;
+import me.tntlimit.plugincore.util.Utils;
 import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.plugin.PluginDescriptionFile;
 import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.plugin.java.JavaPluginLoader;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
 
 /**
@@ -15,20 +29,43 @@ import org.bukkit.plugin.java.JavaPlugin;
  * Main class extending this class<br>
  * Resources:<br>
  * plugin.yml<br>
- * <b>messages.properties</b> - must at least have the "no-permission" key.
+ * <b>messages.properties</b> - must at least have the "no-permission" key,
+ * the "cooldown" key ({0} is the time left) if you use a {@link me.tntlimit.plugincore.util.Cooldown},
+ * the "command-error" key for commands that fail, and the "command-running" key if you use an {@link AsyncCommandBase}.
+ * <br><br>
+ * Use {@link #preload()} in {@link #onEnable()} to load messages, config and resources before they are first used.
  *
  * @see CommandBase
+ * @see AsyncCommandBase
  * @see GUIBase
  * @see ItemBase
  */
 public abstract class PluginBase extends JavaPlugin {
 	public static PluginBase INSTANCE;
+	final List<Runnable> disableHooks = new CopyOnWriteArrayList<>();
+	private final List<ConfigBinding<?>> bindings = new CopyOnWriteArrayList<>();
+	private DisableListener disableListener;
+	private GUIListener guiListener;
+	private ItemListener itemListener;
+	private ExecutorService workers;
+	private TickScheduler scheduler;
 
 
 	public PluginBase() {
 		INSTANCE = this;
 	}
 
+	/**
+	 * Creates the plugin outside of a server, for example in benchmarks or tests.
+	 * <b>Do not</b> use this in a real plugin.
+	 *
+	 * @see JavaPlugin#JavaPlugin(JavaPluginLoader, PluginDescriptionFile, File, File)
+	 */
+	protected PluginBase(JavaPluginLoader loader, PluginDescriptionFile description, File dataFolder, File file) {
+		super(loader, description, dataFolder, file);
+		INSTANCE = this;
+	}
+
 	/**
 	 * Called when the plugin is enabled.
 	 * This is where you should register commands, listeners, etc.
@@ -41,4 +78,117 @@ public abstract class PluginBase extends JavaPlugin {
 	public static FileConfiguration config() {
 		return INSTANCE.getConfig();
 	}
+
+	/**
+	 * Map part of the config onto a typed, immutable snapshot.
+	 * The snapshot is built now, and rebuilt every time the config is reloaded.
+	 *
+	 * @param binder Maps the config onto a snapshot, throws an exception if the config is invalid
+	 * @return The binding holding the current snapshot
+	 * @throws IllegalArgumentException If the current config is invalid
+	 * @see ConfigBinding
+	 */
+	public static <T> ConfigBinding<T> bind(Function<FileConfiguration, T> binder) {
+		ConfigBinding<T> binding = new ConfigBinding<>(binder, config());
+		INSTANCE.bindings.add(binding);
+		return binding;
+	}
+
+	/**
+	 * Reloads the config from disk, clears everything cached from it and rebuilds all config bindings
+	 */
+	@Override
+	public void reloadConfig() {
+		super.reloadConfig();
+		Utils.invalidateConfigItems();
+
+		FileConfiguration config = getConfig();
+		for (ConfigBinding<?> binding : bindings) binding.rebind(config);
+	}
+
+	/**
+	 * Start a startup preload phase, call this from {@link #onEnable()}.
+	 * Messages, config and resources added to it are loaded in parallel off the main thread,
+	 * so the first command or GUI does not have to load them from disk.
+	 *
+	 * @return A new preloader, add what to load then call {@link Preloader#run()} or {@link Preloader#runAsync()}
+	 */
+	protected Preloader preload() {
+		return new Preloader();
+	}
+
+	/**
+	 * Get the worker pool shared by the framework for work that should not run on the main thread.
+	 * The pool is created when first used and shut down when the plugin is disabled.
+	 * <b>Do not</b> use the Bukkit API from tasks running on it unless it is documented as thread safe.
+	 *
+	 * @return The worker pool
+	 */
+	public static synchronized ExecutorService workers() {
+		if (INSTANCE.workers != null) return INSTANCE.workers;
+
+		AtomicInteger count = new AtomicInteger();
+		int threads = Math.max(2, Runtime.getRuntime().availableProcessors() - 1);
+		INSTANCE.workers = Executors.newFixedThreadPool(threads, r -> {
+			Thread thread = new Thread(r, INSTANCE.getName() + "-worker-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		ExecutorService workers = INSTANCE.workers;
+		INSTANCE.addDisableHook(workers::shutdown);
+		return workers;
+	}
+
+	/**
+	 * Get the scheduler shared by the framework for main thread work that should be spread over several ticks.
+	 * The scheduler is started when first used and stopped when the plugin is disabled.
+	 *
+	 * @return The tick scheduler
+	 */
+	public static synchronized TickScheduler scheduler() {
+		if (INSTANCE.scheduler != null) return INSTANCE.scheduler;
+
+		TickScheduler scheduler = new TickScheduler();
+		scheduler.start();
+		INSTANCE.scheduler = scheduler;
+		INSTANCE.addDisableHook(scheduler::stop);
+		return scheduler;
+	}
+
+	/**
+	 * Adds a task to run when the plugin is disabled, just before {@link #onDisable()} is called.
+	 *
+	 * @param hook The task to run
+	 */
+	public synchronized void addDisableHook(Runnable hook) {
+		if (disableListener == null) {
+			disableListener = new DisableListener();
+			getServer().getPluginManager().registerEvents(disableListener, this);
+		}
+
+		disableHooks.add(hook);
+	}
+
+	/**
+	 * Get the listener shared by all GUIs, registering it the first time a GUI is created
+	 */
+	GUIListener guiListener() {
+		if (guiListener != null) return guiListener;
+
+		guiListener = new GUIListener();
+		getServer().getPluginManager().registerEvents(guiListener, this);
+		return guiListener;
+	}
+
+	/**
+	 * Get the listener shared by all items, registering it the first time an item is created
+	 */
+	ItemListener itemListener() {
+		if (itemListener != null) return itemListener;
+
+		itemListener = new ItemListener();
+		getServer().getPluginManager().registerEvents(itemListener, this);
+		return itemListener;
+	}
 }
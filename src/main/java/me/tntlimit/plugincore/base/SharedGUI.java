@@ -0,0 +1,122 @@
+package me.tntlimit.plugincore.base;
+
+import me.tntlimit.plugincore.util.TickScheduler;
+import org.bukkit.entity.HumanEntity;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * A GUI that looks the same for everyone, such as a server selector or a warp menu.
+ * One inventory is rendered once and opened for any number of players, instead of building a GUI per player.
+ * Changes to the contents are seen by every viewer at once.
+ * <br><br>
+ * Create it once and keep it, for example in a field of your plugin, then open it with {@link #open(Player)}:
+ * <pre>
+ * this.warps = new WarpsGUI(); // extends SharedGUI
+ * ...
+ * warps.open(player);
+ * </pre>
+ * {@link #render()} is called the first time the GUI is opened, call {@link #refresh()} when the contents change.
+ * Clicks are handled per viewer through {@link #onInventoryClick(org.bukkit.event.inventory.InventoryClickEvent, Player, int)},
+ * with the player who clicked.
+ * <br><br>
+ * {@link #getViewer()} is null for shared GUIs, use {@link #getViewers()}.
+ */
+public abstract class SharedGUI extends GUIBase {
+	private boolean rendered;
+
+
+	/**
+	 * Creates a new shared GUI
+	 *
+	 * @param size The size of the inventory in slots <b>(Must be a multiple of 9)</b>
+	 * @param title The title of the GUI container (Color codes are supported)
+	 */
+	public SharedGUI(int size, String title) {
+		super(size, null, title, false);
+	}
+
+	/**
+	 * Called to set the contents of the inventory, use {@link #setItem(int, org.bukkit.inventory.ItemStack)}
+	 * so only slots that changed are written when refreshing.
+	 */
+	protected abstract void render();
+
+	/**
+	 * Renders the contents if they were not rendered yet, does not open the GUI for anyone
+	 */
+	@Override
+	public final void display() {
+		if (rendered) return;
+
+		rendered = true;
+		render();
+	}
+
+	/**
+	 * Render the contents again, every viewer sees the changes
+	 */
+	public void refresh() {
+		rendered = true;
+		render();
+	}
+
+	/**
+	 * Open the GUI for a player, rendering it first if needed
+	 * @param player The player to open the GUI for
+	 */
+	public void open(Player player) {
+		displayTimed();
+		player.openInventory(inventory);
+	}
+
+	/**
+	 * Open the GUI for a player on a later tick, through the {@link PluginBase#scheduler()}
+	 * @param player The player to open the GUI for
+	 * @see GUIBase#displayAsync()
+	 */
+	public void openAsync(Player player) {
+		PluginBase.scheduler().run(() -> {
+			if (player.isOnline()) open(player);
+		}, TickScheduler.Priority.HIGH);
+	}
+
+	/**
+	 * Close the GUI for every viewer
+	 */
+	public void closeAll() {
+		for (HumanEntity viewer : new ArrayList<>(inventory.getViewers())) viewer.closeInventory();
+	}
+
+	/**
+	 * Get the players looking at this GUI
+	 * @return The viewers
+	 */
+	public List<Player> getViewers() {
+		List<Player> viewers = new ArrayList<>();
+		for (HumanEntity viewer : inventory.getViewers())
+			if (viewer instanceof Player) viewers.add((Player) viewer);
+
+		return viewers;
+	}
+
+	/**
+	 * Check if a player has this GUI open
+	 * @param player The player
+	 * @return True if the player is looking at this GUI
+	 */
+	public boolean isViewing(Player player) {
+		return inventory.equals(player.getOpenInventory().getTopInventory());
+	}
+
+	/**
+	 * @return True if anyone is looking at this GUI
+	 */
+	@Override
+	public boolean isViewing() {
+		return !inventory.getViewers().isEmpty();
+	}
+}
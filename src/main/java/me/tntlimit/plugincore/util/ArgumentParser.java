@@ -0,0 +1,165 @@
+package me.tntlimit.plugincore.util;
+
+import org.bukkit.Bukkit;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+
+
+/**
+ * Parses a typed command argument.
+ * Parsers are created once when the command is registered, so any lookup tables they need are built only once.
+ *
+ * @param <T> The type the argument is parsed to
+ * @see SubCommand#argument(String, ArgumentParser)
+ */
+@FunctionalInterface
+public interface ArgumentParser<T> {
+	/**
+	 * Parse an argument
+	 *
+	 * @param sender The sender running the command
+	 * @param input The raw argument
+	 * @return The parsed value
+	 * @throws IllegalArgumentException If the argument is invalid, the message is sent to the sender
+	 */
+	T parse(CommandSender sender, String input);
+
+	/**
+	 * Get tab completions for this argument
+	 *
+	 * @param sender The sender tab completing
+	 * @param prefix What was typed so far
+	 * @return The completions starting with the prefix
+	 */
+	default List<String> complete(CommandSender sender, String prefix) {
+		return Utils.EMPTY_LIST;
+	}
+
+	/**
+	 * @return A parser returning the argument as is
+	 */
+	static ArgumentParser<String> string() {
+		return (sender, input) -> input;
+	}
+
+	/**
+	 * @return A parser for whole numbers
+	 */
+	static ArgumentParser<Integer> integer() {
+		return integer(Integer.MIN_VALUE, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * @param min The minimum value, inclusive
+	 * @param max The maximum value, inclusive
+	 * @return A parser for whole numbers in a range
+	 */
+	static ArgumentParser<Integer> integer(int min, int max) {
+		return (sender, input) -> {
+			int value;
+			try {
+				value = Integer.parseInt(input);
+			} catch (NumberFormatException e) {
+				throw new IllegalArgumentException("Invalid number: " + input);
+			}
+
+			if (value < min || value > max)
+				throw new IllegalArgumentException("Number must be between " + min + " and " + max + ": " + input);
+			return value;
+		};
+	}
+
+	/**
+	 * @return A parser for online players by exact name, completed from the {@link OnlinePlayerIndex}
+	 */
+	static ArgumentParser<Player> player() {
+		return new ArgumentParser<Player>() {
+			@Override
+			public Player parse(CommandSender sender, String input) {
+				Player player = Bukkit.getPlayerExact(input);
+				if (player == null) throw new IllegalArgumentException("Player not found: " + input);
+				return player;
+			}
+
+			@Override
+			public List<String> complete(CommandSender sender, String prefix) {
+				return OnlinePlayerIndex.complete(sender, prefix);
+			}
+		};
+	}
+
+	/**
+	 * Durations are written as numbers followed by a unit, for example {@code 1h30m}.
+	 * Units are s (seconds), m (minutes), h (hours), d (days) and w (weeks). A number without a unit is in seconds.
+	 *
+	 * @return A parser for durations
+	 */
+	static ArgumentParser<Duration> duration() {
+		long[] units = new long[128]; // Seconds per unit, indexed by unit character
+		units['s'] = 1;
+		units['m'] = 60;
+		units['h'] = 60 * 60;
+		units['d'] = 24 * 60 * 60;
+		units['w'] = 7 * 24 * 60 * 60;
+
+		return (sender, input) -> {
+			if (input.isEmpty()) throw new IllegalArgumentException("Invalid duration: " + input);
+			long seconds = 0;
+			long number = -1;
+
+			for (int i = 0; i < input.length(); i++) {
+				char c = Character.toLowerCase(input.charAt(i));
+				if (c >= '0' && c <= '9') {
+					number = (number == -1 ? 0 : number * 10) + (c - '0');
+					if (number > Integer.MAX_VALUE) throw new IllegalArgumentException("Duration too long: " + input);
+					continue;
+				}
+
+				if (number == -1 || c >= units.length || units[c] == 0)
+					throw new IllegalArgumentException("Invalid duration: " + input);
+
+				seconds += number * units[c];
+				number = -1;
+			}
+
+			if (number != -1) seconds += number; // Trailing number without a unit
+			return Duration.ofSeconds(seconds);
+		};
+	}
+
+	/**
+	 * @param type The enum class
+	 * @return A case-insensitive parser for the constants of an enum
+	 */
+	static <E extends Enum<E>> ArgumentParser<E> enumeration(Class<E> type) {
+		HashMap<String, E> constants = new HashMap<>();
+		PrefixTrie<String> names = new PrefixTrie<>();
+		for (E constant : type.getEnumConstants()) {
+			String name = constant.name().toLowerCase(Locale.ROOT);
+			constants.put(name, constant);
+			names.put(name, name);
+		}
+
+		return new ArgumentParser<E>() {
+			@Override
+			public E parse(CommandSender sender, String input) {
+				E constant = constants.get(input.toLowerCase(Locale.ROOT));
+				if (constant == null) throw new IllegalArgumentException("Invalid " + type.getSimpleName().toLowerCase(Locale.ROOT) + ": " + input);
+				return constant;
+			}
+
+			@Override
+			public List<String> complete(CommandSender sender, String prefix) {
+				List<String> completions = new ArrayList<>();
+				names.collectKeys(prefix, Integer.MAX_VALUE, completions);
+				return completions;
+			}
+		};
+	}
+}
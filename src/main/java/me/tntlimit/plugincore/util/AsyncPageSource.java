@@ -0,0 +1,49 @@
+package me.tntlimit.plugincore.util;
+
+import me.tntlimit.plugincore.base.PluginBase;
+import org.bukkit.Bukkit;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+
+
+/**
+ * A {@link PageSource} that runs blocking queries on the Bukkit async scheduler
+ * @see PageSource#async(Supplier, BiFunction)
+ */
+class AsyncPageSource<T> implements PageSource<T> {
+	private final Supplier<Integer> count;
+	private final BiFunction<Integer, Integer, List<T>> fetch;
+
+
+	AsyncPageSource(Supplier<Integer> count, BiFunction<Integer, Integer, List<T>> fetch) {
+		this.count = count;
+		this.fetch = fetch;
+	}
+
+	@Override
+	public CompletableFuture<Integer> count() {
+		return supplyAsync(count);
+	}
+
+	@Override
+	public CompletableFuture<List<T>> fetch(int offset, int limit) {
+		return supplyAsync(() -> fetch.apply(offset, limit));
+	}
+
+	private static <R> CompletableFuture<R> supplyAsync(Supplier<R> supplier) {
+		CompletableFuture<R> future = new CompletableFuture<>();
+
+		Bukkit.getScheduler().runTaskAsynchronously(PluginBase.INSTANCE, () -> {
+			try {
+				future.complete(supplier.get());
+			} catch (Throwable t) {
+				future.completeExceptionally(t);
+			}
+		});
+
+		return future;
+	}
+}
@@ -0,0 +1,199 @@
+package me.tntlimit.plugincore.util;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+
+/**
+ * A thread safe cache with a maximum size.
+ * Reads are lock free, entries are evicted with a clock (second chance) policy once the cache is full:
+ * entries read since the hand last passed them are kept, the others are removed.
+ * The hand continues from where the previous eviction stopped, so every entry gets the same chance.
+ * <br><br>
+ * Null keys and values are not supported.
+ *
+ * @param <K> The key type
+ * @param <V> The value type
+ */
+public class BoundedCache<K, V> {
+	private final ConcurrentHashMap<K, Entry<V>> map;
+	private final int maxSize;
+	private final ReentrantLock evictLock = new ReentrantLock();
+	private Iterator<Map.Entry<K, Entry<V>>> hand; // Guarded by evictLock
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+
+
+	/**
+	 * @param maxSize The maximum number of entries, once exceeded about 10% of the entries are evicted
+	 */
+	public BoundedCache(int maxSize) {
+		if (maxSize < 1) throw new IllegalArgumentException("Max size must be at least 1");
+
+		this.maxSize = maxSize;
+		this.map = new ConcurrentHashMap<>(Math.min(maxSize, 256));
+	}
+
+	/**
+	 * Get a cached value
+	 *
+	 * @param key The key
+	 * @return The value or null if it is not cached
+	 */
+	public V get(K key) {
+		Entry<V> entry = map.get(key);
+		if (entry == null) {
+			misses.increment();
+			return null;
+		}
+
+		if (!entry.used) entry.used = true; // Avoid writing the shared flag on every read
+		hits.increment();
+		return entry.value;
+	}
+
+	/**
+	 * Get a cached value, computing and caching it if it is not cached.
+	 * The loader may be called more than once for the same key by concurrent callers.
+	 *
+	 * @param key The key
+	 * @param loader Computes the value, must not return null
+	 * @return The value
+	 */
+	public V get(K key, Function<? super K, ? extends V> loader) {
+		V value = get(key);
+		if (value != null) return value;
+
+		value = loader.apply(key);
+		put(key, value);
+		return value;
+	}
+
+	public void put(K key, V value) {
+		Entry<V> entry = new Entry<>(value);
+		map.put(key, entry);
+		if (map.size() > maxSize) evict(entry);
+	}
+
+	public void remove(K key) {
+		map.remove(key);
+	}
+
+	public void clear() {
+		map.clear();
+	}
+
+	public int size() {
+		return map.size();
+	}
+
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	/**
+	 * Remove entries until about 10% below the maximum size, never the entry just inserted
+	 */
+	private void evict(Entry<V> inserted) {
+		if (!evictLock.tryLock()) return; // Another thread is already evicting
+
+		try {
+			int target = maxSize - Math.max(1, maxSize / 10);
+
+			// Two turns of the hand are enough, the first clears every used flag it passes
+			for (int steps = 2 * map.size() + 2; steps > 0 && map.size() > target; steps--) {
+				if (hand == null || !hand.hasNext()) hand = map.entrySet().iterator();
+				if (!hand.hasNext()) break;
+
+				Entry<V> entry = hand.next().getValue();
+				if (entry == inserted) continue;
+				if (entry.used) {
+					entry.used = false;
+					continue;
+				}
+
+				hand.remove();
+				evictions.increment();
+			}
+		} finally {
+			evictLock.unlock();
+		}
+	}
+
+	/**
+	 * Get a snapshot of this cache's counters
+	 * @return The hit, miss and eviction counts and the current size
+	 */
+	public Stats getStats() {
+		return new Stats(hits.sum(), misses.sum(), evictions.sum(), map.size(), maxSize);
+	}
+
+
+	private static final class Entry<V> {
+		private final V value;
+		private volatile boolean used;
+
+		private Entry(V value) {
+			this.value = value;
+		}
+	}
+
+	/**
+	 * A snapshot of the counters of a {@link BoundedCache}
+	 */
+	public static final class Stats {
+		private final long hits;
+		private final long misses;
+		private final long evictions;
+		private final int size;
+		private final int maxSize;
+
+
+		private Stats(long hits, long misses, long evictions, int size, int maxSize) {
+			this.hits = hits;
+			this.misses = misses;
+			this.evictions = evictions;
+			this.size = size;
+			this.maxSize = maxSize;
+		}
+
+		public long getHits() {
+			return hits;
+		}
+
+		public long getMisses() {
+			return misses;
+		}
+
+		public long getEvictions() {
+			return evictions;
+		}
+
+		public int getSize() {
+			return size;
+		}
+
+		public int getMaxSize() {
+			return maxSize;
+		}
+
+		/**
+		 * @return The fraction of lookups that were hits, between 0 and 1
+		 */
+		public double getHitRate() {
+			long total = hits + misses;
+			return total == 0 ? 0 : (double) hits / total;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("size=%d/%d hits=%d misses=%d evictions=%d hitRate=%.1f%%",
+					size, maxSize, hits, misses, evictions, getHitRate() * 100);
+		}
+	}
+}
@@ -0,0 +1,95 @@
+package me.tntlimit.plugincore.util;
+
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+
+import java.util.Arrays;
+
+
+/**
+ * The sender and parsed arguments of a subcommand being executed
+ * @see SubCommand
+ */
+public final class CommandContext {
+	private final CommandSender sender;
+	private final String label;
+	private final String[] args;
+	private final int offset;
+	private final SubCommand command;
+	private final Object[] values;
+
+
+	CommandContext(CommandSender sender, String label, String[] args, int offset, SubCommand command, Object[] values) {
+		this.sender = sender;
+		this.label = label;
+		this.args = args;
+		this.offset = offset;
+		this.command = command;
+		this.values = values;
+	}
+
+	/**
+	 * Get a parsed argument
+	 *
+	 * @param name The name the argument was declared with
+	 * @return The parsed value, or null if it is optional and was not given
+	 * @throws IllegalArgumentException If the subcommand has no argument with that name
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> T get(String name) {
+		return (T) values[command.indexOf(name)];
+	}
+
+	/**
+	 * Get a parsed argument
+	 *
+	 * @param name The name the argument was declared with
+	 * @param def The value to return if the argument was not given
+	 * @return The parsed value or the default
+	 * @throws IllegalArgumentException If the subcommand has no argument with that name
+	 */
+	public <T> T get(String name, T def) {
+		T value = get(name);
+		return value != null ? value : def;
+	}
+
+	/**
+	 * Join the raw arguments after the declared arguments, for example a reason message
+	 * @return The extra arguments separated by spaces, or an empty string if there are none
+	 */
+	public String getRemaining() {
+		int from = offset + values.length;
+		if (from >= args.length) return "";
+
+		return String.join(" ", Arrays.copyOfRange(args, from, args.length));
+	}
+
+	public CommandSender getSender() {
+		return sender;
+	}
+
+	/**
+	 * @return The sender as a player, or null if the sender is not a player
+	 */
+	public Player getPlayer() {
+		return sender instanceof Player ? (Player) sender : null;
+	}
+
+	/**
+	 * @return The alias used to execute the command
+	 */
+	public String getLabel() {
+		return label;
+	}
+
+	/**
+	 * @return All raw arguments, including the subcommand names
+	 */
+	public String[] getRawArgs() {
+		return args;
+	}
+
+	public void reply(String message) {
+		sender.sendMessage(message);
+	}
+}
@@ -0,0 +1,78 @@
+package me.tntlimit.plugincore.util;
+
+import me.tntlimit.plugincore.base.PluginBase;
+import org.bukkit.configuration.file.FileConfiguration;
+
+import java.util.function.Function;
+import java.util.logging.Level;
+
+
+/**
+ * A typed, immutable snapshot of part of the config.
+ * The config is mapped onto the snapshot once per load, so hot code reads plain fields instead of
+ * looking up string paths in the config.
+ * <br><br>
+ * When the config is reloaded through {@link PluginBase#reloadConfig()} a new snapshot is built and published
+ * through a single volatile reference. If the new config is invalid the previous snapshot is kept.
+ * <br><br>
+ * Example:
+ * <pre>
+ * private static final ConfigBinding&lt;Settings&gt; SETTINGS = PluginBase.bind(config -&gt; new Settings(
+ *     config.getInt("cooldown", 5),
+ *     ItemConfig.parse(config.getConfigurationSection("menu.close"))
+ * ));
+ *
+ * int cooldown = SETTINGS.get().cooldown;
+ * </pre>
+ *
+ * @param <T> The snapshot type, should be immutable
+ * @see PluginBase#bind(Function)
+ */
+public final class ConfigBinding<T> {
+	private final Function<FileConfiguration, T> binder;
+	private volatile T value;
+
+
+	/**
+	 * Binds the snapshot for the first time
+	 *
+	 * @param binder Maps the config onto a snapshot, throws an exception if the config is invalid
+	 * @param config The current config
+	 * @throws IllegalArgumentException If the current config is invalid
+	 */
+	public ConfigBinding(Function<FileConfiguration, T> binder, FileConfiguration config) {
+		this.binder = binder;
+
+		try {
+			this.value = binder.apply(config);
+		} catch (IllegalArgumentException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new IllegalArgumentException("Invalid config: " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Build a new snapshot from the config and publish it
+	 *
+	 * @param config The reloaded config
+	 * @return False if the config was invalid and the previous snapshot was kept
+	 */
+	public boolean rebind(FileConfiguration config) {
+		try {
+			this.value = binder.apply(config);
+			return true;
+		} catch (Exception e) {
+			PluginBase.INSTANCE.getLogger().log(Level.WARNING, "Invalid config, keeping the previous values: " + e.getMessage(), e);
+			return false;
+		}
+	}
+
+	/**
+	 * Get the current snapshot
+	 * @return The snapshot built from the last valid config
+	 */
+	public T get() {
+		return value;
+	}
+}
@@ -0,0 +1,279 @@
+package me.tntlimit.plugincore.util;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * A cooldown or rate limit, tracked per player.
+ * <br><br>
+ * Three modes are available:<br>
+ * {@link #fixed(Duration)} - one use, then wait the full duration<br>
+ * {@link #tokenBucket(int, Duration)} - bursts of up to a number of uses, one use is given back every interval<br>
+ * {@link #slidingWindow(int, Duration)} - at most a number of uses in any window of time
+ * <br><br>
+ * The state of each player is a single long updated with compare-and-set, so checks never lock
+ * and do not allocate once the player has an entry. Expired entries are removed a few at a time as checks are made.
+ * <br><br>
+ * Denied players can be told how long they must wait with {@link #getMessage(long)},
+ * which formats the <b>cooldown</b> key of messages.properties with the remaining time as {0}.
+ * <br><br>
+ * Thread safe.
+ */
+public final class Cooldown {
+	private static final long DEAD = Long.MIN_VALUE; // Set on entries being removed, checkers fetch a new entry
+	private static final int SWEEP_PER_CHECK = 2;
+	private final Mode mode;
+	private final long interval; // Fixed: the cooldown, token bucket: time to regain one use, sliding window: the window
+	private final long burst; // Token bucket: how far ahead of now the state may be, sliding window: the limit
+	private final ConcurrentHashMap<UUID, AtomicLong> states = new ConcurrentHashMap<>();
+	private final AtomicBoolean sweeping = new AtomicBoolean();
+	private Iterator<Map.Entry<UUID, AtomicLong>> sweeper; // Guarded by sweeping
+
+
+	private Cooldown(Mode mode, long interval, long burst) {
+		if (interval <= 0) throw new IllegalArgumentException("Duration must be positive");
+
+		this.mode = mode;
+		this.interval = interval;
+		this.burst = burst;
+	}
+
+	/**
+	 * A fixed cooldown, once used the player must wait the full duration
+	 * @param cooldown The time between uses
+	 */
+	public static Cooldown fixed(Duration cooldown) {
+		return new Cooldown(Mode.FIXED, cooldown.toMillis(), 0);
+	}
+
+	/**
+	 * A token bucket, players can use it up to capacity times in a row and regain one use every interval
+	 *
+	 * @param capacity The maximum number of uses saved up
+	 * @param interval The time to regain one use
+	 */
+	public static Cooldown tokenBucket(int capacity, Duration interval) {
+		if (capacity < 1) throw new IllegalArgumentException("Capacity must be at least 1");
+		return new Cooldown(Mode.TOKEN_BUCKET, interval.toMillis(), (capacity - 1) * interval.toMillis());
+	}
+
+	/**
+	 * A sliding window, players can use it at most limit times in any window.
+	 * Uses in the previous window are weighted by how much of it overlaps the sliding window,
+	 * which is exact when uses are spread evenly and never off by more than the previous window's uses.
+	 *
+	 * @param limit The maximum number of uses per window, at most 65535
+	 * @param window The length of the window
+	 */
+	public static Cooldown slidingWindow(int limit, Duration window) {
+		if (limit < 1 || limit > 0xFFFF) throw new IllegalArgumentException("Limit must be between 1 and 65535");
+		return new Cooldown(Mode.SLIDING_WINDOW, window.toMillis(), limit);
+	}
+
+	/**
+	 * Use the cooldown if the player is allowed to
+	 *
+	 * @param player The player's UUID
+	 * @return 0 if the use was allowed, otherwise the time in milliseconds until it will be
+	 */
+	public long tryAcquire(UUID player) {
+		return tryAcquire(player, null);
+	}
+
+	/**
+	 * Use the cooldown if the player is allowed to, remembering the use so it can be given back with {@link #undo}
+	 * @param undo Filled with the state before and after the use if it was allowed, null to not remember it
+	 */
+	long tryAcquire(UUID player, long[] undo) {
+		long now = System.currentTimeMillis();
+		sweep(now);
+
+		while (true) {
+			AtomicLong state = states.get(player);
+			if (state == null) state = states.computeIfAbsent(player, k -> new AtomicLong());
+
+			long current = state.get();
+			if (current == DEAD) { // Being removed by the sweeper, make sure it is gone and get a new entry
+				states.remove(player, state);
+				continue;
+			}
+
+			long remaining = remaining(current, now);
+			if (remaining > 0) return remaining;
+			long next = acquire(current, now);
+			if (state.compareAndSet(current, next)) {
+				if (undo != null) {
+					undo[0] = current;
+					undo[1] = next;
+				}
+				return 0;
+			}
+		}
+	}
+
+	/**
+	 * Give back a use remembered by {@link #tryAcquire(UUID, long[])}, unless the player used the cooldown again since
+	 */
+	void undo(UUID player, long[] undo) {
+		AtomicLong state = states.get(player);
+		if (state != null) state.compareAndSet(undo[1], undo[0]);
+	}
+
+	/**
+	 * Get the time until the player may use the cooldown again, without using it
+	 *
+	 * @param player The player's UUID
+	 * @return The time in milliseconds, 0 if they may use it now
+	 */
+	public long getRemaining(UUID player) {
+		AtomicLong state = states.get(player);
+		if (state == null) return 0;
+
+		long current = state.get();
+		return current == DEAD ? 0 : remaining(current, System.currentTimeMillis());
+	}
+
+	/**
+	 * Get the message telling a player how long they must wait
+	 *
+	 * @param remaining The time in milliseconds, as returned by {@link #tryAcquire(UUID)}
+	 * @return The formatted <b>cooldown</b> message
+	 */
+	public String getMessage(long remaining) {
+		return I18n.format("cooldown", formatDuration(remaining));
+	}
+
+	/**
+	 * Forget a player's uses, they may use it again immediately
+	 * @param player The player's UUID
+	 */
+	public void reset(UUID player) {
+		states.remove(player);
+	}
+
+	public void resetAll() {
+		states.clear();
+	}
+
+	/**
+	 * @return The number of players with an entry, including expired entries not swept yet
+	 */
+	public int size() {
+		return states.size();
+	}
+
+	private long remaining(long state, long now) {
+		switch (mode) {
+			case FIXED: // State is when the cooldown ends
+				return Math.max(0, state - now);
+			case TOKEN_BUCKET: // State is when the bucket will be full again (theoretical arrival time)
+				return Math.max(0, state - now - burst);
+			default: { // State is the window index, the previous window's uses and the current window's uses
+				long window = window(now);
+				long elapsed = now % interval;
+				long previous = previousUses(state, window);
+				long current = (state >>> 32) == window ? state & 0xFFFF : 0;
+
+				if (previous * (interval - elapsed) / interval + current < burst) return 0;
+				if (current >= burst) return interval - elapsed;
+				// Wait until enough of the previous window has slid out
+				return (previous + current - burst) * interval / previous + 1 - elapsed;
+			}
+		}
+	}
+
+	private long acquire(long state, long now) {
+		switch (mode) {
+			case FIXED:
+				return now + interval;
+			case TOKEN_BUCKET:
+				return Math.max(state, now) + interval;
+			default: {
+				long window = window(now);
+				if ((state >>> 32) == window) return state + 1;
+				return window << 32 | previousUses(state, window) << 16 | 1;
+			}
+		}
+	}
+
+	private boolean isExpired(long state, long now) {
+		if (mode != Mode.SLIDING_WINDOW) return state <= now;
+
+		long window = window(now);
+		long stateWindow = state >>> 32;
+		return stateWindow != window && stateWindow != ((window - 1) & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * Get the window index, wrapped to 32 bits
+	 */
+	private long window(long now) {
+		return (now / interval) & 0xFFFFFFFFL;
+	}
+
+	/**
+	 * Get the uses of the window before the given one
+	 */
+	private static long previousUses(long state, long window) {
+		long stateWindow = state >>> 32;
+		if (stateWindow == window) return (state >>> 16) & 0xFFFF;
+		if (stateWindow == ((window - 1) & 0xFFFFFFFFL)) return state & 0xFFFF;
+		return 0;
+	}
+
+	/**
+	 * Remove a few expired entries, continuing from where the last sweep stopped
+	 */
+	private void sweep(long now) {
+		if (!sweeping.compareAndSet(false, true)) return; // Another thread is already sweeping
+
+		try {
+			for (int i = 0; i < SWEEP_PER_CHECK; i++) {
+				if (sweeper == null || !sweeper.hasNext()) {
+					if (states.isEmpty()) return;
+					sweeper = states.entrySet().iterator();
+				}
+
+				Map.Entry<UUID, AtomicLong> entry = sweeper.next();
+				AtomicLong state = entry.getValue();
+				long current = state.get();
+				if (current != DEAD && isExpired(current, now) && state.compareAndSet(current, DEAD))
+					states.remove(entry.getKey(), state);
+			}
+		} finally {
+			sweeping.set(false);
+		}
+	}
+
+	/**
+	 * Format a duration for players, for example 1h 5m 3s
+	 *
+	 * @param millis The duration in milliseconds, rounded up to the second
+	 * @return The formatted duration
+	 */
+	public static String formatDuration(long millis) {
+		long seconds = Math.max(1, (millis + 999) / 1000);
+		long days = seconds / 86400;
+		long hours = seconds / 3600 % 24;
+		long minutes = seconds / 60 % 60;
+		seconds %= 60;
+
+		StringBuilder builder = new StringBuilder();
+		if (days > 0) builder.append(days).append("d ");
+		if (hours > 0) builder.append(hours).append("h ");
+		if (minutes > 0) builder.append(minutes).append("m ");
+		if (seconds > 0) builder.append(seconds).append("s ");
+		return builder.substring(0, builder.length() - 1);
+	}
+
+
+	private enum Mode {
+		FIXED, TOKEN_BUCKET, SLIDING_WINDOW
+	}
+}
@@ -1,12 +1,16 @@
 package me.tntlimit.plugincore.util;
 
 import me.tntlimit.plugincore.base.PluginBase;
-import org.bukkit.ChatColor;
+import org.bukkit.entity.Player;
 
-import java.net.URL;
-import java.util.HashMap;
+import java.io.IOException;
 import java.util.Locale;
-import java.util.ResourceBundle;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
 
 
 /**
@@ -14,7 +18,18 @@ import java.util.ResourceBundle;
  * This class will automatically load the messages.properties file from the plugin data folder.
  * If the file is not found, it will create it from the messages.properties file inside the jar.
  * <br><br>
- * Includes a cache for 0 arg messages. This is to prevent the overhead of creating a new string every time.
+ * Each message is compiled once into a {@link MessageTemplate} with color codes and variables already applied,
+ * formatting a message is then a single pass over the template.
+ * Templates and {@link #colorize} results are kept in bounded caches that are safe to read from any thread,
+ * see {@link #getTemplateCacheStats()} and {@link #getColorizeCacheStats()} to size them.
+ * <br><br>
+ * Messages can be translated per player with {@link #format(Player, String, Object...)}.
+ * Translations are loaded from messages_&lt;locale&gt;.properties (for example messages_de.properties or messages_de_DE.properties)
+ * the first time a locale is needed, keys missing from it fall back to the less specific files and finally messages.properties.
+ * <br><br>
+ * Messages can be reloaded without a restart with {@link #reload()}, or automatically when the files change with {@link #watch()}.
+ * The loaded messages and caches are published as one immutable snapshot,
+ * so readers on any thread never see a half loaded state and never take a lock.
  * <br><br>
  * Includes built in variable support. Variables are defined in the messages.properties file with the format:
  * <code>
@@ -27,28 +42,129 @@ import java.util.ResourceBundle;
  * The variables will be replaced with their values when the message is retrieved through {@link #format}.
  */
 public class I18n {
-	private static final HashMap<String, String> CACHE = new HashMap<>();
-	private static final HashMap<String, String> VARIABLES = new HashMap<>();
-	private static final String FILE = "messages";
-	private static ResourceBundle BUNDLE;
-	static { init(); }
-
-
-	private static void init() {
-		try { // Load the resource bundle from plugin data dir
-			URL[] urls = new URL[] { PluginBase.INSTANCE.getDataFolder().toURI().toURL() };
-			ClassLoader loader = new java.net.URLClassLoader(urls);
-
-			BUNDLE = ResourceBundle.getBundle(FILE, Locale.ENGLISH, loader);
-		} catch (Exception e) { // Fall back and use default messages.properties from inside the jar
-			PluginBase.INSTANCE.saveResource(FILE + ".properties", false);
-			BUNDLE = ResourceBundle.getBundle(FILE);
+	private static final Locale DEFAULT_LOCALE = Locale.ENGLISH;
+	private static final AtomicBoolean LISTENING = new AtomicBoolean();
+	private static final ConcurrentHashMap<UUID, Locale> PLAYERS = new ConcurrentHashMap<>(); // Kept across reloads
+	private static volatile Snapshot SNAPSHOT; // null until first used or preloaded
+	private static I18nWatcher WATCHER;
+	private static boolean stopOnDisable; // Whether the disable hook stopping the watcher was added
+
+
+	/**
+	 * Load the messages if they are not loaded yet, along with any extra locales.
+	 * Messages are otherwise loaded the first time they are used, which may be in the middle of a tick.
+	 *
+	 * @param locales Extra locales to load, for example the languages most of your players use
+	 * @see me.tntlimit.plugincore.base.PluginBase#preload()
+	 */
+	public static void load(Locale... locales) {
+		Snapshot snapshot = snapshot();
+		for (Locale locale : locales) snapshot.getBundle(locale);
+	}
+
+	private static Snapshot snapshot() {
+		Snapshot snapshot = SNAPSHOT;
+		if (snapshot != null) return snapshot;
+
+		synchronized (I18n.class) {
+			if (SNAPSHOT == null) SNAPSHOT = new Snapshot(MessageBundle.load(DEFAULT_LOCALE));
+			return SNAPSHOT;
+		}
+	}
+
+	/**
+	 * Reload all messages from disk.
+	 * The new messages are loaded before being swapped in, messages requested meanwhile come from the previous ones.
+	 * Locales that were already loaded are loaded again so they are not read from disk when first used.
+	 */
+	public static synchronized void reload() {
+		Snapshot old = SNAPSHOT;
+		Snapshot snapshot = new Snapshot(MessageBundle.load(DEFAULT_LOCALE));
+
+		if (old != null) for (Locale locale : old.bundles.keySet()) snapshot.getBundle(locale);
+		SNAPSHOT = snapshot;
+		Utils.invalidateConfigItems(); // Their names and lore were colorized with the previous variables
+	}
+
+	/**
+	 * Reload all messages from disk on the worker pool
+	 * @return A future completed once the new messages are in use
+	 * @see #reload()
+	 */
+	public static CompletableFuture<Void> reloadAsync() {
+		CompletableFuture<Void> future;
+		try {
+			future = CompletableFuture.runAsync(I18n::reload, PluginBase.workers());
+		} catch (RejectedExecutionException e) { // The plugin is being disabled
+			future = new CompletableFuture<>();
+			future.completeExceptionally(e);
+			return future;
 		}
 
-		// Load variables
-		for (String key : BUNDLE.keySet())
-			if (key.startsWith("var."))
-				VARIABLES.put(key.substring(4), ChatColor.translateAlternateColorCodes('&', BUNDLE.getString(key)));
+		return future.whenComplete((v, error) -> {
+			if (error != null) PluginBase.INSTANCE.getLogger().log(Level.WARNING, "Failed to reload messages", error);
+			else PluginBase.INSTANCE.getLogger().info("Reloaded messages");
+		});
+	}
+
+	/**
+	 * Start watching the plugin data folder, messages are reloaded off the main thread whenever a messages file changes.
+	 * The watcher is stopped when the plugin is disabled.
+	 */
+	public static synchronized void watch() {
+		if (WATCHER != null) return;
+
+		try {
+			WATCHER = new I18nWatcher();
+			WATCHER.start();
+			if (!stopOnDisable) PluginBase.INSTANCE.addDisableHook(I18n::stopWatching);
+			stopOnDisable = true;
+		} catch (IOException e) {
+			PluginBase.INSTANCE.getLogger().log(Level.WARNING, "Failed to watch messages for changes", e);
+			WATCHER = null;
+		}
+	}
+
+	public static synchronized void stopWatching() {
+		if (WATCHER == null) return;
+
+		WATCHER.close();
+		WATCHER = null;
+	}
+
+	private static MessageBundle getBundle(Locale locale) {
+		return snapshot().getBundle(locale);
+	}
+
+	private static MessageBundle getBundle(Player player) {
+		Locale locale = PLAYERS.get(player.getUniqueId());
+		if (locale != null) return getBundle(locale);
+
+		if (LISTENING.compareAndSet(false, true))
+			PluginBase.INSTANCE.getServer().getPluginManager().registerEvents(new I18nListener(), PluginBase.INSTANCE);
+
+		locale = parseLocale(player.getLocale());
+		PLAYERS.put(player.getUniqueId(), locale);
+		return getBundle(locale);
+	}
+
+	static void setPlayerLocale(UUID player, String locale) {
+		PLAYERS.put(player, parseLocale(locale));
+	}
+
+	static void forgetPlayer(UUID player) {
+		PLAYERS.remove(player);
+	}
+
+	/**
+	 * Parse a Minecraft locale such as en_us
+	 */
+	private static Locale parseLocale(String locale) {
+		if (locale == null || locale.isEmpty()) return DEFAULT_LOCALE;
+
+		int separator = locale.indexOf('_');
+		if (separator == -1) return new Locale(locale);
+		return new Locale(locale.substring(0, separator), locale.substring(separator + 1));
 	}
 
 	/**
@@ -61,51 +177,110 @@ public class I18n {
 	 * @return The message or the passed in key if the message is not found
 	 */
 	public static String get(String key) {
-		try {
-			return BUNDLE.getString(key);
-		} catch (Exception e) {
-			PluginBase.INSTANCE.getLogger().warning("Missing translation for key: " + key);
-			return key;
-		}
+		return snapshot().defaults.get(key);
 	}
 
 	/**
 	 * Apply color codes and variables to a message.
 	 * Use this method if you need to apply color codes or variables to a message
 	 * that is not in the messages.properties file (For example from the config.yml).
+	 * Results are cached, so avoid passing strings that are different every time.
 	 *
 	 * @param msg The message to apply color codes and variables to
 	 * @return The formatted message
 	 */
 	public static String colorize(String msg) {
-		msg = ChatColor.translateAlternateColorCodes('&', msg);
+		Snapshot snapshot = snapshot();
+		return snapshot.colorized.get(msg, m -> MessageTemplate.compile(m, snapshot.defaults.getVariables()).format());
+	}
 
-		// Apply variables
-		for (String key : VARIABLES.keySet())
-			msg = msg.replace("{" + key + "}", VARIABLES.get(key));
+	/**
+	 * Get the compiled template for a message from the messages.properties file.
+	 * Templates are compiled once and cached.
+	 *
+	 * @param key The key to get the template for
+	 * @return The template, compiled from the key itself if the message is not found
+	 */
+	public static MessageTemplate getTemplate(String key) {
+		return snapshot().defaults.getTemplate(key);
+	}
 
-		return msg;
+	/**
+	 * Get the compiled template for a message in the given locale
+	 *
+	 * @param locale The locale to get the template for
+	 * @param key The key to get the template for
+	 * @return The template, compiled from the key itself if the message is not found
+	 */
+	public static MessageTemplate getTemplate(Locale locale, String key) {
+		return getBundle(locale).getTemplate(key);
 	}
 
 	/**
 	 * Get a formatted message from the messages.properties file.
 	 * This will apply color codes and variables.
-	 * This method will cache messages with no arguments.
 	 *
 	 * @param key The key to get the message for
 	 * @param args The arguments to replace in the message (if any)
 	 * @return The formatted message or the passed in key if the message is not found
 	 */
 	public static String format(String key, Object... args) {
-		if (args.length == 0 && CACHE.containsKey(key)) return CACHE.get(key);
-		String msg = colorize(get(key));
+		return snapshot().defaults.getTemplate(key).format(args);
+	}
+
+	/**
+	 * Get a formatted message in the given locale.
+	 * This will apply color codes and variables.
+	 *
+	 * @param locale The locale to translate to
+	 * @param key The key to get the message for
+	 * @param args The arguments to replace in the message (if any)
+	 * @return The formatted message or the passed in key if the message is not found
+	 */
+	public static String format(Locale locale, String key, Object... args) {
+		return getBundle(locale).getTemplate(key).format(args);
+	}
+
+	/**
+	 * Get a formatted message in the player's locale.
+	 * The player's locale is cached until they change it or log out.
+	 *
+	 * @param player The player to translate for
+	 * @param key The key to get the message for
+	 * @param args The arguments to replace in the message (if any)
+	 * @return The formatted message or the passed in key if the message is not found
+	 */
+	public static String format(Player player, String key, Object... args) {
+		return getBundle(player).getTemplate(key).format(args);
+	}
 
-		for (int i = 0; i < args.length; i++) {
-			if (args[i] == null) continue;
-			msg = msg.replace("{" + i + "}", args[i].toString());
+	public static BoundedCache.Stats getTemplateCacheStats() {
+		return snapshot().defaults.getTemplateCacheStats();
+	}
+
+	public static BoundedCache.Stats getColorizeCacheStats() {
+		return snapshot().colorized.getStats();
+	}
+
+
+	/**
+	 * Everything loaded from the messages files, replaced as a whole on reload.
+	 * Locales are added to it lazily.
+	 */
+	private static final class Snapshot {
+		private final MessageBundle defaults;
+		private final ConcurrentHashMap<Locale, MessageBundle> bundles = new ConcurrentHashMap<>();
+		private final BoundedCache<String, String> colorized = new BoundedCache<>(1024);
+
+
+		private Snapshot(MessageBundle defaults) {
+			this.defaults = defaults;
+			bundles.put(defaults.getLocale(), defaults);
 		}
 
-		if (args.length == 0) CACHE.put(key, msg);
-		return msg;
+		private MessageBundle getBundle(Locale locale) {
+			MessageBundle bundle = bundles.get(locale); // computeIfAbsent locks even when present on Java 8
+			return bundle != null ? bundle : bundles.computeIfAbsent(locale, MessageBundle::load);
+		}
 	}
 }
@@ -0,0 +1,25 @@
+package me.tntlimit.plugincore.util;
+
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerLocaleChangeEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+
+/**
+ * Keeps the per-player locale cache of {@link I18n} up to date
+ */
+final class I18nListener implements Listener {
+
+	@EventHandler(priority = EventPriority.LOWEST)
+	public void onLocaleChange(PlayerLocaleChangeEvent e) {
+		// Player#getLocale still returns the old locale during this event
+		I18n.setPlayerLocale(e.getPlayer().getUniqueId(), e.getLocale());
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR)
+	public void onQuit(PlayerQuitEvent e) {
+		I18n.forgetPlayer(e.getPlayer().getUniqueId());
+	}
+}
@@ -0,0 +1,73 @@
+package me.tntlimit.plugincore.util;
+
+import me.tntlimit.plugincore.base.PluginBase;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Watches the plugin data folder and reloads {@link I18n} when a messages file changes
+ * @see I18n#watch()
+ */
+final class I18nWatcher implements Runnable {
+	private static final long DEBOUNCE_MS = 250; // Editors often write a file in several steps
+	private final WatchService service;
+
+
+	I18nWatcher() throws IOException {
+		this.service = FileSystems.getDefault().newWatchService();
+
+		Path folder = PluginBase.INSTANCE.getDataFolder().toPath();
+		folder.register(service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+	}
+
+	void start() {
+		Thread thread = new Thread(this, PluginBase.INSTANCE.getName() + "-i18n-watcher");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	void close() {
+		try {
+			service.close();
+		} catch (IOException ignored) { }
+	}
+
+	@Override
+	public void run() {
+		try {
+			while (true) {
+				boolean changed = poll(service.take());
+
+				// Collect the rest of the burst before reloading once
+				WatchKey key;
+				while ((key = service.poll(DEBOUNCE_MS, TimeUnit.MILLISECONDS)) != null) changed |= poll(key);
+
+				if (changed) I18n.reloadAsync();
+			}
+		} catch (InterruptedException | ClosedWatchServiceException ignored) { }
+	}
+
+	private static boolean poll(WatchKey key) {
+		boolean changed = false;
+
+		for (WatchEvent<?> event : key.pollEvents()) {
+			Object context = event.context();
+			if (!(context instanceof Path)) continue;
+
+			String name = context.toString();
+			if (name.startsWith(MessageBundle.FILE) && name.endsWith(".properties")) changed = true;
+		}
+
+		key.reset();
+		return changed;
+	}
+}
@@ -0,0 +1,117 @@
+package me.tntlimit.plugincore.util;
+
+import org.bukkit.Material;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+
+/**
+ * An item section of the config, parsed and validated once.
+ * Display name and lore are colorized via {@link I18n#colorize(String)} when parsing.
+ * <br><br>
+ * Example config item section:
+ * <code>
+ * item:<br>
+ *   material: GOLD_BLOCK<br>
+ *   name: '&amp;c&amp;lAdvertising'<br>
+ *   lore:<br>
+ *     - '&amp;7Click to kick the player for advertising'<br>
+ * </code>
+ * <br><br>
+ * Amount is optional and defaults to 1<br>
+ * Data is optional and defaults to 0
+ *
+ * @see Utils#getItemFromConfig(String, ItemStack)
+ */
+public final class ItemConfig {
+	private final Material material;
+	private final int amount;
+	private final short data;
+	private final String name; // null if not set
+	private final List<String> lore;
+
+
+	private ItemConfig(Material material, int amount, short data, String name, List<String> lore) {
+		this.material = material;
+		this.amount = amount;
+		this.data = data;
+		this.name = name;
+		this.lore = lore;
+	}
+
+	/**
+	 * Parse an item section
+	 *
+	 * @param section The item section
+	 * @return The parsed item
+	 * @throws IllegalArgumentException If the section is missing or invalid
+	 */
+	public static ItemConfig parse(ConfigurationSection section) {
+		if (section == null) throw new IllegalArgumentException("Item section is missing");
+
+		String path = section.getCurrentPath();
+		String materialName = section.getString("material");
+		if (materialName == null) throw new IllegalArgumentException("Missing material for " + path);
+
+		Material material;
+		try {
+			material = Material.valueOf(materialName);
+		} catch (IllegalArgumentException e) {
+			throw new IllegalArgumentException("Unknown material " + materialName + " for " + path);
+		}
+
+		int amount = section.getInt("amount", 1);
+		if (amount < 1) throw new IllegalArgumentException("Invalid amount " + amount + " for " + path);
+
+		String name = section.getString("name");
+		List<String> rawLore = section.getStringList("lore");
+		List<String> lore = new ArrayList<>(rawLore.size());
+		for (String s : rawLore) lore.add(I18n.colorize(s));
+
+		return new ItemConfig(material, amount, (short) section.getInt("data", 0),
+				name != null ? I18n.colorize(name) : null, Collections.unmodifiableList(lore));
+	}
+
+	/**
+	 * Build a new item from this config
+	 *
+	 * @return The new item
+	 * @throws IllegalArgumentException If the material cannot have item meta
+	 */
+	@SuppressWarnings("deprecation")
+	public ItemStack toItemStack() {
+		ItemStack itemStack = new ItemStack(material, amount, data);
+		ItemMeta itemMeta = itemStack.getItemMeta();
+		if (itemMeta == null) throw new IllegalArgumentException("Material " + material + " has no item meta");
+
+		if (name != null) itemMeta.setDisplayName(name);
+		itemMeta.setLore(new ArrayList<>(lore));
+		itemStack.setItemMeta(itemMeta);
+		return itemStack;
+	}
+
+	public Material getMaterial() {
+		return material;
+	}
+
+	public int getAmount() {
+		return amount;
+	}
+
+	public short getData() {
+		return data;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public List<String> getLore() {
+		return lore;
+	}
+}
@@ -0,0 +1,124 @@
+package me.tntlimit.plugincore.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * A fixed size histogram of call durations.
+ * Durations are counted in log-linear buckets (8 per power of two), so percentiles are accurate to within 12.5%
+ * while the histogram always takes the same memory however many calls are recorded.
+ * <br><br>
+ * Thread safe, recording does not lock or allocate.
+ *
+ * @see Metrics
+ */
+public final class LatencyHistogram {
+	private static final int SUB_BUCKETS = 8;
+	private static final int BUCKETS = (64 - 2) * SUB_BUCKETS;
+	private final String name;
+	private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+	private final LongAdder count = new LongAdder();
+	private final LongAdder total = new LongAdder();
+	private final AtomicLong max = new AtomicLong();
+
+
+	LatencyHistogram(String name) {
+		this.name = name;
+	}
+
+	/**
+	 * Record a call
+	 * @param nanos The duration of the call in nanoseconds
+	 */
+	public void record(long nanos) {
+		if (nanos < 0) nanos = 0;
+
+		buckets.incrementAndGet(bucket(nanos));
+		count.increment();
+		total.add(nanos);
+
+		long current = max.get();
+		while (nanos > current && !max.compareAndSet(current, nanos)) current = max.get();
+	}
+
+	private static int bucket(long nanos) {
+		if (nanos < SUB_BUCKETS) return (int) nanos;
+
+		int exponent = 63 - Long.numberOfLeadingZeros(nanos); // At least 3
+		int sub = (int) (nanos >>> (exponent - 3)) & (SUB_BUCKETS - 1);
+		return (exponent - 2) * SUB_BUCKETS + sub;
+	}
+
+	/**
+	 * Get the highest duration that falls in a bucket
+	 */
+	private static long upperBound(int bucket) {
+		if (bucket < SUB_BUCKETS) return bucket;
+
+		int exponent = bucket / SUB_BUCKETS + 2;
+		long sub = bucket % SUB_BUCKETS;
+		return ((SUB_BUCKETS + sub + 1) << (exponent - 3)) - 1;
+	}
+
+	/**
+	 * Get a percentile of the recorded durations
+	 *
+	 * @param percentile The percentile, between 0 and 100
+	 * @return The duration in nanoseconds, at most the highest recorded duration, or 0 if nothing was recorded
+	 */
+	public long getPercentile(double percentile) {
+		long[] counts = new long[BUCKETS];
+		long recorded = 0;
+		for (int i = 0; i < BUCKETS; i++) recorded += counts[i] = buckets.get(i);
+		if (recorded == 0) return 0;
+
+		long target = Math.max(1, (long) Math.ceil(percentile / 100 * recorded));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += counts[i];
+			if (seen >= target) return Math.min(upperBound(i), getMax());
+		}
+
+		return getMax();
+	}
+
+	/**
+	 * Forget all recorded calls
+	 */
+	public void reset() {
+		for (int i = 0; i < BUCKETS; i++) buckets.set(i, 0);
+		count.reset();
+		total.reset();
+		max.set(0);
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public long getCount() {
+		return count.sum();
+	}
+
+	/**
+	 * @return The total duration of all recorded calls in nanoseconds
+	 */
+	public long getTotal() {
+		return total.sum();
+	}
+
+	/**
+	 * @return The longest recorded call in nanoseconds
+	 */
+	public long getMax() {
+		return max.get();
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s count=%d p50=%.3fms p99=%.3fms max=%.3fms total=%.1fms",
+				name, getCount(), getPercentile(50) / 1e6, getPercentile(99) / 1e6, getMax() / 1e6, getTotal() / 1e6);
+	}
+}
@@ -0,0 +1,117 @@
+package me.tntlimit.plugincore.util;
+
+import me.tntlimit.plugincore.base.PluginBase;
+import org.bukkit.ChatColor;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PropertyResourceBundle;
+
+
+/**
+ * The messages of one locale and their compiled templates.
+ * Shared by every player using that locale.
+ * @see I18n
+ */
+final class MessageBundle {
+	static final String FILE = "messages";
+	private final Locale locale;
+	private final Map<String, String> messages;
+	private final Map<String, String> variables;
+	private final BoundedCache<String, MessageTemplate> templates = new BoundedCache<>(2048);
+
+
+	private MessageBundle(Locale locale, Map<String, String> messages) {
+		this.locale = locale;
+		this.messages = Collections.unmodifiableMap(messages);
+
+		HashMap<String, String> variables = new HashMap<>();
+		for (Map.Entry<String, String> entry : messages.entrySet())
+			if (entry.getKey().startsWith("var."))
+				variables.put(entry.getKey().substring(4), ChatColor.translateAlternateColorCodes('&', entry.getValue()));
+
+		this.variables = Collections.unmodifiableMap(variables);
+	}
+
+	/**
+	 * Load the messages for a locale.
+	 * Falls back along the locale chain, for example messages_de_DE, messages_de then messages.
+	 * Each file is read from the plugin data folder, or from the jar if it is not there.
+	 *
+	 * @param locale The locale to load
+	 * @return The loaded bundle
+	 */
+	static MessageBundle load(Locale locale) {
+		HashMap<String, String> messages = new HashMap<>();
+		for (String name : candidates(locale)) read(name + ".properties", messages);
+
+		return new MessageBundle(locale, messages);
+	}
+
+	private static List<String> candidates(Locale locale) {
+		List<String> names = new ArrayList<>(3);
+		names.add(FILE); // Least specific first so more specific files override it
+
+		if (!locale.getLanguage().isEmpty()) names.add(FILE + "_" + locale.getLanguage());
+		if (!locale.getCountry().isEmpty()) names.add(FILE + "_" + locale.getLanguage() + "_" + locale.getCountry());
+		return names;
+	}
+
+	private static void read(String file, Map<String, String> messages) {
+		File onDisk = new File(PluginBase.INSTANCE.getDataFolder(), file);
+
+		try {
+			if (!onDisk.exists() && file.equals(FILE + ".properties"))
+				PluginBase.INSTANCE.saveResource(file, false); // Write the default messages to disk
+		} catch (IllegalArgumentException e) {
+			PluginBase.INSTANCE.getLogger().warning("Missing default " + file + " in jar");
+		}
+
+		try (InputStream stream = onDisk.exists() ? Files.newInputStream(onDisk.toPath()) : PluginBase.INSTANCE.getResource(file)) {
+			if (stream == null) return;
+
+			PropertyResourceBundle bundle = new PropertyResourceBundle(stream);
+			for (String key : bundle.keySet()) messages.put(key, bundle.getString(key));
+		} catch (IOException e) {
+			PluginBase.INSTANCE.getLogger().warning("Failed to load " + file + ": " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Get a raw message
+	 *
+	 * @param key The key to get the message for
+	 * @return The message or the passed in key if the message is not found
+	 */
+	String get(String key) {
+		String msg = messages.get(key);
+		if (msg != null) return msg;
+
+		PluginBase.INSTANCE.getLogger().warning("Missing translation for key: " + key + " (" + locale + ")");
+		return key;
+	}
+
+	MessageTemplate getTemplate(String key) {
+		return templates.get(key, k -> MessageTemplate.compile(get(k), variables));
+	}
+
+	Map<String, String> getVariables() {
+		return variables;
+	}
+
+	BoundedCache.Stats getTemplateCacheStats() {
+		return templates.getStats();
+	}
+
+	Locale getLocale() {
+		return locale;
+	}
+}
@@ -0,0 +1,128 @@
+package me.tntlimit.plugincore.util;
+
+import org.bukkit.ChatColor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * A message compiled once into literal text and {@code {n}} argument segments.
+ * Color codes are translated and variables are substituted when compiling,
+ * so formatting is a single pass into a pre-sized {@link StringBuilder}.
+ * <br><br>
+ * An argument that is null or not passed is left in the message as {@code {n}}.
+ *
+ * @see I18n#format
+ */
+public final class MessageTemplate {
+	private final String[] literals; // Literal text around the arguments, one more than args
+	private final int[] args; // Argument index of each argument segment
+	private final int length; // Total length of the literals
+
+
+	private MessageTemplate(String[] literals, int[] args) {
+		this.literals = literals;
+		this.args = args;
+
+		int length = 0;
+		for (String literal : literals) length += literal.length();
+		this.length = length;
+	}
+
+	/**
+	 * Compile a raw message
+	 *
+	 * @param raw The raw message with {@code &} color codes, {@code {variable}} and {@code {n}} placeholders
+	 * @param variables The variable values by name, already colorized
+	 * @return The compiled template
+	 */
+	public static MessageTemplate compile(String raw, Map<String, String> variables) {
+		String msg = ChatColor.translateAlternateColorCodes('&', raw);
+		StringBuilder literal = new StringBuilder(msg.length());
+		List<String> literals = new ArrayList<>();
+		List<Integer> args = new ArrayList<>();
+
+		int i = 0;
+		while (i < msg.length()) {
+			char c = msg.charAt(i);
+			int end = c == '{' ? msg.indexOf('}', i + 1) : -1;
+
+			if (end != -1) {
+				String name = msg.substring(i + 1, end);
+				int arg = parseIndex(name);
+				String value = arg == -1 ? variables.get(name) : null;
+
+				if (arg != -1) {
+					literals.add(literal.toString());
+					literal.setLength(0);
+					args.add(arg);
+					i = end + 1;
+					continue;
+				} else if (value != null) {
+					literal.append(value);
+					i = end + 1;
+					continue;
+				}
+			}
+
+			literal.append(c);
+			i++;
+		}
+
+		literals.add(literal.toString());
+		int[] argIndexes = new int[args.size()];
+		for (int j = 0; j < argIndexes.length; j++) argIndexes[j] = args.get(j);
+
+		return new MessageTemplate(literals.toArray(new String[0]), argIndexes);
+	}
+
+	private static int parseIndex(String s) {
+		if (s.isEmpty() || s.length() > 9) return -1;
+
+		int index = 0;
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			if (c < '0' || c > '9') return -1;
+			index = index * 10 + (c - '0');
+		}
+
+		return index;
+	}
+
+	/**
+	 * Format the message with the given arguments
+	 *
+	 * @param args The arguments to replace {@code {n}} with
+	 * @return The formatted message
+	 */
+	public String format(Object... args) {
+		if (this.args.length == 0) return literals[0];
+
+		StringBuilder builder = new StringBuilder(length + 16 * this.args.length);
+		for (int i = 0; i < this.args.length; i++) {
+			builder.append(literals[i]);
+
+			int index = this.args[i];
+			Object arg = index < args.length ? args[index] : null;
+			if (arg == null) builder.append('{').append(index).append('}');
+			else builder.append(arg);
+		}
+
+		return builder.append(literals[literals.length - 1]).toString();
+	}
+
+	/**
+	 * Check if this template has any argument segments
+	 * @return True if there are no {@code {n}} placeholders, meaning {@link #format} always returns the same string
+	 */
+	public boolean isConstant() {
+		return args.length == 0;
+	}
+
+	@Override
+	public String toString() {
+		return format();
+	}
+}
@@ -0,0 +1,203 @@
+package me.tntlimit.plugincore.util;
+
+import me.tntlimit.plugincore.base.PluginBase;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+
+/**
+ * Optional timing of the framework's callbacks.
+ * When enabled, the time spent in command execution and tab completion, GUI display and clicks,
+ * page changes and item use is recorded per command and per class in {@link LatencyHistogram}s.
+ * <br><br>
+ * What is measured:<br>
+ * /&lt;command&gt;.execute - the main thread part of a command, for async commands only routing, parsing and handing off<br>
+ * /&lt;command&gt;.executeAsync - the part of an async command run on the worker pool<br>
+ * /&lt;command&gt;.tabComplete - tab completion, including cached results<br>
+ * &lt;Class&gt;.display - GUIs displayed through displayAsync() or SharedGUI.open(),
+ * calling display() directly is <b>not</b> timed<br>
+ * &lt;Class&gt;.displayPage, &lt;Class&gt;.click, &lt;Class&gt;.onUse - page changes, GUI clicks and item use
+ * <br><br>
+ * Disabled by default, a disabled check costs a single volatile read.
+ * View the timings in game with {@link me.tntlimit.plugincore.base.MetricsCommand}, or write them to a file with {@link #export()}.
+ * Calls slower than {@link #setSlowCallThreshold(long)} are logged.
+ * <br><br>
+ * Time your own code the same way:
+ * <pre>
+ * long start = Metrics.start();
+ * doWork();
+ * Metrics.stop(Metrics.histogram("my-plugin.work"), start);
+ * </pre>
+ */
+public final class Metrics {
+	private static final long SLOW_LOG_INTERVAL = 1_000_000_000L; // Log the same slow call at most once per second
+	private static final ConcurrentHashMap<String, LatencyHistogram> HISTOGRAMS = new ConcurrentHashMap<>();
+	private static final ConcurrentHashMap<String, Long> LAST_SLOW_LOG = new ConcurrentHashMap<>();
+	private static final ClassValue<ConcurrentHashMap<String, LatencyHistogram>> BY_CLASS = new ClassValue<ConcurrentHashMap<String, LatencyHistogram>>() {
+		@Override
+		protected ConcurrentHashMap<String, LatencyHistogram> computeValue(Class<?> type) {
+			return new ConcurrentHashMap<>();
+		}
+	};
+	private static volatile boolean ENABLED;
+	private static volatile long SLOW_NANOS; // 0 to not log slow calls
+
+
+	private Metrics() { }
+
+	public static void enable() {
+		ENABLED = true;
+	}
+
+	public static void disable() {
+		ENABLED = false;
+	}
+
+	public static boolean isEnabled() {
+		return ENABLED;
+	}
+
+	/**
+	 * Log calls that take longer than a threshold, at most once per second for each histogram
+	 * @param millis The threshold in milliseconds, 0 to not log slow calls
+	 */
+	public static void setSlowCallThreshold(long millis) {
+		SLOW_NANOS = millis * 1_000_000L;
+	}
+
+	/**
+	 * Get or create a histogram
+	 *
+	 * @param name The name of the histogram
+	 * @return The histogram
+	 */
+	public static LatencyHistogram histogram(String name) {
+		LatencyHistogram histogram = HISTOGRAMS.get(name);
+		if (histogram != null) return histogram;
+
+		return HISTOGRAMS.computeIfAbsent(name, LatencyHistogram::new);
+	}
+
+	/**
+	 * Get or create the histogram of an operation of a class, named ClassName.operation.
+	 * Does not allocate once the histogram exists.
+	 *
+	 * @param type The class, for example a GUI
+	 * @param operation The operation, should be a constant
+	 * @return The histogram
+	 */
+	public static LatencyHistogram histogram(Class<?> type, String operation) {
+		ConcurrentHashMap<String, LatencyHistogram> histograms = BY_CLASS.get(type);
+		LatencyHistogram histogram = histograms.get(operation);
+		if (histogram != null) return histogram;
+
+		String name = type.getSimpleName().isEmpty() ? type.getName() : type.getSimpleName();
+		return histograms.computeIfAbsent(operation, op -> histogram(name + "." + op));
+	}
+
+	/**
+	 * Start timing a call
+	 * @return The start time to pass to {@link #stop}, or 0 if metrics are disabled
+	 */
+	public static long start() {
+		return ENABLED ? System.nanoTime() : 0;
+	}
+
+	/**
+	 * Stop timing a call and record it
+	 *
+	 * @param histogram The histogram to record in
+	 * @param start The value returned by {@link #start()}
+	 */
+	public static void stop(LatencyHistogram histogram, long start) {
+		if (start == 0) return;
+
+		long nanos = System.nanoTime() - start;
+		histogram.record(nanos);
+
+		long slow = SLOW_NANOS;
+		if (slow > 0 && nanos > slow) logSlowCall(histogram, nanos);
+	}
+
+	/**
+	 * Stop timing a call and record it in the histogram of an operation of a class
+	 *
+	 * @param type The class
+	 * @param operation The operation, should be a constant
+	 * @param start The value returned by {@link #start()}
+	 * @see #histogram(Class, String)
+	 */
+	public static void stop(Class<?> type, String operation, long start) {
+		if (start != 0) stop(histogram(type, operation), start);
+	}
+
+	private static void logSlowCall(LatencyHistogram histogram, long nanos) {
+		long now = System.nanoTime();
+		Long last = LAST_SLOW_LOG.get(histogram.getName());
+		if (last != null && now - last < SLOW_LOG_INTERVAL) return;
+
+		LAST_SLOW_LOG.put(histogram.getName(), now);
+		PluginBase.INSTANCE.getLogger().warning(String.format("Slow call: %s took %.2fms", histogram.getName(), nanos / 1e6));
+	}
+
+	/**
+	 * Get all histograms
+	 * @return The histograms by name, in alphabetical order
+	 */
+	public static Map<String, LatencyHistogram> getHistograms() {
+		return new TreeMap<>(HISTOGRAMS);
+	}
+
+	/**
+	 * Forget all recorded calls
+	 */
+	public static void reset() {
+		for (LatencyHistogram histogram : HISTOGRAMS.values()) histogram.reset();
+	}
+
+	/**
+	 * Write all histograms to a new CSV file in the plugin data folder, named metrics-&lt;date&gt;.csv
+	 *
+	 * @return The file written
+	 * @throws IOException If the file could not be written
+	 */
+	public static File export() throws IOException {
+		String date = new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
+		return export(new File(PluginBase.INSTANCE.getDataFolder(), "metrics-" + date + ".csv"));
+	}
+
+	/**
+	 * Write all histograms to a CSV file, durations are in milliseconds
+	 *
+	 * @param file The file to write
+	 * @return The file written
+	 * @throws IOException If the file could not be written
+	 */
+	public static File export(File file) throws IOException {
+		File parent = file.getParentFile();
+		if (parent != null) Files.createDirectories(parent.toPath());
+
+		try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8))) {
+			writer.println("name,count,p50,p90,p99,max,total");
+			for (LatencyHistogram histogram : getHistograms().values()) {
+				writer.printf(Locale.ROOT, "%s,%d,%.3f,%.3f,%.3f,%.3f,%.3f%n", histogram.getName(), histogram.getCount(),
+						histogram.getPercentile(50) / 1e6, histogram.getPercentile(90) / 1e6, histogram.getPercentile(99) / 1e6,
+						histogram.getMax() / 1e6, histogram.getTotal() / 1e6);
+			}
+
+			if (writer.checkError()) throw new IOException("Failed to write " + file);
+		}
+
+		return file;
+	}
+}
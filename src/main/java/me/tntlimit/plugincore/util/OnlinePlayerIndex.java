@@ -0,0 +1,85 @@
+package me.tntlimit.plugincore.util;
+
+import me.tntlimit.plugincore.base.PluginBase;
+import org.bukkit.Bukkit;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * An index of online player names for tab completion.
+ * Kept up to date from join and quit events instead of scanning every online player on each keystroke,
+ * a prefix query takes time proportional to the prefix length and the number of matches.
+ * <br><br>
+ * Thread safe.
+ */
+public final class OnlinePlayerIndex implements Listener {
+	private static OnlinePlayerIndex INSTANCE;
+	private final PrefixTrie<Player> players = new PrefixTrie<>();
+
+
+	private OnlinePlayerIndex() {
+		for (Player player : Bukkit.getOnlinePlayers()) players.put(player.getName(), player);
+	}
+
+	private static synchronized OnlinePlayerIndex get() {
+		if (INSTANCE == null) {
+			INSTANCE = new OnlinePlayerIndex();
+			PluginBase.INSTANCE.getServer().getPluginManager().registerEvents(INSTANCE, PluginBase.INSTANCE);
+		}
+
+		return INSTANCE;
+	}
+
+	/**
+	 * Get the names of online players starting with a prefix, in alphabetical order.
+	 * Players the sender cannot see are left out.
+	 *
+	 * @param sender The sender tab completing
+	 * @param prefix What was typed so far, matched case-insensitively
+	 * @param limit The maximum number of names to return
+	 * @return The matching names
+	 */
+	public static List<String> complete(CommandSender sender, String prefix, int limit) {
+		OnlinePlayerIndex index = get();
+		List<Player> matches = new ArrayList<>();
+		synchronized (index) {
+			index.players.collectValues(prefix, Integer.MAX_VALUE, matches);
+		}
+
+		List<String> names = new ArrayList<>(Math.min(matches.size(), limit));
+		for (Player player : matches) {
+			if (names.size() >= limit) break;
+			if (sender instanceof Player && !((Player) sender).canSee(player)) continue;
+
+			names.add(player.getName());
+		}
+
+		return names;
+	}
+
+	/**
+	 * @see #complete(CommandSender, String, int)
+	 */
+	public static List<String> complete(CommandSender sender, String prefix) {
+		return complete(sender, prefix, Integer.MAX_VALUE);
+	}
+
+	@EventHandler(priority = EventPriority.LOWEST)
+	public synchronized void onJoin(PlayerJoinEvent e) {
+		players.put(e.getPlayer().getName(), e.getPlayer());
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR)
+	public synchronized void onQuit(PlayerQuitEvent e) {
+		players.remove(e.getPlayer().getName());
+	}
+}
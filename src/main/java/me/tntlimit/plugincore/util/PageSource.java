@@ -0,0 +1,74 @@
+package me.tntlimit.plugincore.util;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+
+
+/**
+ * A source of elements for a {@link PaginatedGUI}.
+ * Pages are fetched lazily when they are displayed, so large data sets do not have to be loaded up front.
+ * <br><br>
+ * The returned futures may be completed on any thread, the GUI will apply the results on the main thread.
+ *
+ * @param <T> The type of element in the source
+ */
+public interface PageSource<T> {
+	/**
+	 * Get the total number of elements in this source
+	 * @return A future completed with the number of elements
+	 */
+	CompletableFuture<Integer> count();
+
+	/**
+	 * Fetch a range of elements
+	 *
+	 * @param offset The index of the first element to fetch
+	 * @param limit The maximum number of elements to fetch
+	 * @return A future completed with the elements, which may be fewer than the limit at the end of the source
+	 */
+	CompletableFuture<List<T>> fetch(int offset, int limit);
+
+	/**
+	 * Create a source backed by an array that is already in memory
+	 * @param items The elements
+	 * @return The source, its futures are always already completed
+	 */
+	static <T> PageSource<T> of(T[] items) {
+		return of(Arrays.asList(items));
+	}
+
+	/**
+	 * Create a source backed by a list that is already in memory
+	 * @param items The elements
+	 * @return The source, its futures are always already completed
+	 */
+	static <T> PageSource<T> of(List<T> items) {
+		return new PageSource<T>() {
+			@Override
+			public CompletableFuture<Integer> count() {
+				return CompletableFuture.completedFuture(items.size());
+			}
+
+			@Override
+			public CompletableFuture<List<T>> fetch(int offset, int limit) {
+				if (offset >= items.size()) return CompletableFuture.completedFuture(Collections.emptyList());
+				return CompletableFuture.completedFuture(items.subList(offset, Math.min(items.size(), offset + limit)));
+			}
+		};
+	}
+
+	/**
+	 * Create a source whose queries are blocking (for example a database) and run on the Bukkit async scheduler
+	 *
+	 * @param count Returns the total number of elements
+	 * @param fetch Returns the elements for an offset and limit
+	 * @return The source
+	 */
+	static <T> PageSource<T> async(Supplier<Integer> count, BiFunction<Integer, Integer, List<T>> fetch) {
+		return new AsyncPageSource<>(count, fetch);
+	}
+}
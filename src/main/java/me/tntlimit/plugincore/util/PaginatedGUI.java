@@ -8,21 +8,45 @@ import org.bukkit.entity.Player;
 import org.bukkit.event.inventory.InventoryClickEvent;
 import org.bukkit.inventory.ItemStack;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+
 
 public abstract class PaginatedGUI<T> extends GUIBase {
+	private static final int CACHED_PAGES = 5;
 	private final ItemStack nextButton;
 	private final ItemStack backButton;
 	private final ItemStack filler;
-	private final T[] items;
-	private final int maxPages;
+	private final PageSource<T> source;
+	private final Map<Integer, CompletableFuture<List<T>>> pages; // LRU of loaded/loading pages, main thread only
+	private final Map<T, ItemStack> itemCache; // LRU of items built off the main thread, main thread only
+	private int maxPages = -1; // -1 until the source count is known
 	private int page;
+	private List<T> pageItems; // Elements on the displayed page, null while loading
+	private int renderId; // Incremented on every page change so stale async results can be dropped
+	private boolean incrementalRendering = true;
+	private boolean asyncRendering;
+	private boolean navigationPainted;
 
 
 	/**
 	 * Creates the GUI with the default next/back buttons and filler
 	 */
 	public PaginatedGUI(int size, Player player, String title, T[] items) {
-		this(size, player, title, items,
+		this(size, player, title, PageSource.of(items));
+	}
+
+	/**
+	 * Creates the GUI with the default next/back buttons and filler
+	 * Elements are loaded from the source one page at a time as they are displayed
+	 */
+	public PaginatedGUI(int size, Player player, String title, PageSource<T> source) {
+		this(size, player, title, source,
 				new ItemBuilder(Material.ARROW)
 					.setDisplayName("&aNext Page")
 					.setLore("&7Click to go to the next page")
@@ -36,19 +60,39 @@ public abstract class PaginatedGUI<T> extends GUIBase {
 	}
 
 	public PaginatedGUI(int size, Player player, String title, T[] items, ItemStack nextButton, ItemStack backButton, ItemStack filler) {
+		this(size, player, title, PageSource.of(items), nextButton, backButton, filler);
+	}
+
+	public PaginatedGUI(int size, Player player, String title, PageSource<T> source, ItemStack nextButton, ItemStack backButton, ItemStack filler) {
 		super(size, player, title);
 
-		this.items = items;
+		this.source = source;
 		this.nextButton = nextButton;
 		this.backButton = backButton;
 		this.filler = filler;
-		this.maxPages = (int) Math.max(1, Math.ceil(items.length / (size - 9.0)));
+		this.pages = new LinkedHashMap<Integer, CompletableFuture<List<T>>>(CACHED_PAGES + 1, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Integer, CompletableFuture<List<T>>> eldest) {
+				return size() > CACHED_PAGES;
+			}
+		};
+		this.itemCache = new LinkedHashMap<T, ItemStack>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<T, ItemStack> eldest) {
+				return size() > CACHED_PAGES * (PaginatedGUI.this.getSize() - 9);
+			}
+		};
 		this.page = 0;
+
+		whenLoaded(source.count(), count -> {
+			this.maxPages = (int) Math.max(1, Math.ceil(count / (size - 9.0)));
+			if (this.isOpen()) renderNavigation();
+		});
 	}
 
 	@Override
 	public void displayAsync() {
-		Bukkit.getScheduler().runTaskLater(PluginBase.INSTANCE, () -> displayPage(0), 1);
+		PluginBase.scheduler().run(() -> displayPage(0), TickScheduler.Priority.HIGH);
 	}
 
 	/**
@@ -61,58 +105,261 @@ public abstract class PaginatedGUI<T> extends GUIBase {
 
 	/**
 	 * Displays the specified page
-	 * The GUI will be cleared before displaying the page
 	 * This method will populate the bottom row with the next/back buttons and filler
 	 * and then display to the viewer
+	 * <br><br>
+	 * With incremental rendering (the default) only slots whose item changed are written,
+	 * the filler row is painted once per GUI and the inventory is only opened if the viewer is not already viewing it.
+	 * Otherwise the GUI is cleared, fully repainted and reopened.
+	 * <br><br>
+	 * If the page has not been loaded from the {@link PageSource} yet, {@link #getPlaceholder()} is shown
+	 * in its slots until it is. The previous and next pages are fetched in the background.
 	 *
 	 * @param page The page to display (0-indexed)
+	 * @see #setIncrementalRendering(boolean)
 	 */
 	public void displayPage(int page) {
+		long start = Metrics.start();
+		try {
+			renderPage(page);
+		} finally {
+			Metrics.stop(getClass(), "displayPage", start);
+		}
+	}
+
+	private void renderPage(int page) {
 		this.page = page;
-		this.inventory.clear();
+		this.renderId++;
+		if (!incrementalRendering) {
+			this.inventory.clear();
+			this.resetRendered();
+			this.navigationPainted = false;
+		}
+
+		renderNavigation();
+
+		CompletableFuture<List<T>> future = fetchPage(page);
+		if (future.isDone() && !future.isCompletedExceptionally()) {
+			renderItems(future.join());
+		} else {
+			this.pageItems = null;
+			ItemStack placeholder = this.getPlaceholder();
+			for (int i = 0; i < this.getSize() - 9; i++) setItem(i, placeholder);
+
+			whenLoaded(future, items -> {
+				if (this.page == page && this.isOpen()) renderItems(items);
+			});
+		}
+
+		if (page > 0) fetchPage(page - 1);
+		if (maxPages == -1 || page + 1 < maxPages) fetchPage(page + 1);
+
+		if (!incrementalRendering || !this.isViewing()) this.getViewer().openInventory(inventory);
+	}
 
-		for (int i = 0; i < this.getSize(); i++) {
-			if (i == this.getSize() - 9 && page != 0) {
-				inventory.setItem(i, backButton);
+	private void renderNavigation() {
+		int navigationRow = this.getSize() - 9;
+		if (!navigationPainted) {
+			for (int i = navigationRow + 1; i < this.getSize() - 1; i++) setItem(i, filler);
+			navigationPainted = true;
+		}
+
+		if (page != 0) {
+			setButton(navigationRow, backButton, (e, p) -> displayPage(page - 1));
+		} else {
+			removeButton(navigationRow);
+			setItem(navigationRow, filler);
+		}
+
+		if (hasNextPage()) {
+			setButton(this.getSize() - 1, nextButton, (e, p) -> displayPage(page + 1));
+		} else {
+			removeButton(this.getSize() - 1);
+			setItem(this.getSize() - 1, filler);
+		}
+	}
+
+	private void renderItems(List<T> items) {
+		if (asyncRendering) {
+			renderItemsAsync(items);
+			return;
+		}
+
+		this.pageItems = items;
+		for (int i = 0; i < this.getSize() - 9; i++)
+			setItem(i, i < items.size() ? this.getItem(items.get(i)) : null);
+	}
+
+	/**
+	 * Builds the items that are not cached on the worker pool, then applies them all in one main thread task.
+	 * Elements are not clickable until then, an element whose item fails to build is left empty.
+	 */
+	private void renderItemsAsync(List<T> items) {
+		int render = this.renderId;
+		this.pageItems = null;
+		ItemStack[] stacks = new ItemStack[items.size()];
+		boolean[] failed = new boolean[items.size()];
+		List<CompletableFuture<Void>> pending = new ArrayList<>();
+		ItemStack placeholder = this.getPlaceholder();
+
+		for (int i = 0; i < this.getSize() - 9; i++) {
+			if (i >= items.size()) {
+				setItem(i, null);
 				continue;
-			} else if (i == this.getSize() - 1 && page != maxPages - 1) {
-				inventory.setItem(i, nextButton);
-				break;
-			} else if (i >= this.getSize() - 9) {
-				inventory.setItem(i, filler);
+			}
+
+			T element = items.get(i);
+			if (itemCache.containsKey(element)) {
+				stacks[i] = itemCache.get(element);
+				setItem(i, stacks[i]);
 				continue;
 			}
 
-			int index = page * (this.getSize() - 9) + i;
-			if (index >= items.length) continue;
+			int index = i;
+			pending.add(CompletableFuture.runAsync(() -> stacks[index] = this.getItem(element), PluginBase.workers())
+					.exceptionally(error -> {
+						failed[index] = true;
+						PluginBase.INSTANCE.getLogger().log(Level.WARNING, "Failed to build the item for " + element + " in " + this.getClass().getSimpleName(), error);
+						return null;
+					}));
+			setItem(i, placeholder);
+		}
 
-			inventory.setItem(i, this.getItem(items[index]));
+		if (pending.isEmpty()) {
+			this.pageItems = items;
+			return;
 		}
 
-		this.getViewer().openInventory(inventory);
+		whenLoaded(CompletableFuture.allOf(pending.toArray(new CompletableFuture[0])), v -> {
+			if (render != this.renderId || !this.isOpen()) return; // Viewer already moved to another page
+
+			for (int i = 0; i < stacks.length; i++) {
+				if (!failed[i]) itemCache.put(items.get(i), stacks[i]); // Failed items are built again next time
+				setItem(i, stacks[i]);
+			}
+
+			this.pageItems = items;
+		});
+	}
+
+	private CompletableFuture<List<T>> fetchPage(int page) {
+		CompletableFuture<List<T>> future = pages.get(page);
+		if (future != null) return future;
+
+		int perPage = this.getSize() - 9;
+		future = source.fetch(page * perPage, perPage);
+		pages.put(page, future);
+
+		CompletableFuture<List<T>> fetched = future;
+		future.whenComplete((items, error) -> {
+			if (error != null) runOnMainThread(() -> pages.values().remove(fetched)); // Fetched again next time
+		});
+		return future;
+	}
+
+	/**
+	 * Runs an action on the main thread once a future completes, failures are logged.
+	 * Runs immediately if the future is already completed and this is the main thread.
+	 */
+	private <R> void whenLoaded(CompletableFuture<R> future, Consumer<R> action) {
+		future.whenComplete((result, error) -> runOnMainThread(() -> {
+			if (error == null) action.accept(result);
+			else PluginBase.INSTANCE.getLogger().log(Level.WARNING, "Failed to load contents of " + this.getClass().getSimpleName(), error);
+		}));
+	}
+
+	private static void runOnMainThread(Runnable task) {
+		if (Bukkit.isPrimaryThread()) task.run();
+		else Bukkit.getScheduler().runTask(PluginBase.INSTANCE, task);
+	}
+
+	private boolean hasNextPage() {
+		return maxPages != -1 && page < maxPages - 1;
+	}
+
+	/**
+	 * Called to get the item shown in the slots of a page that is still loading
+	 * @return The placeholder item, by default {@link Utils#getDefaultPlaceholder()}
+	 */
+	protected ItemStack getPlaceholder() {
+		return Utils.getDefaultPlaceholder();
+	}
+
+	/**
+	 * Set whether pages are rendered incrementally.
+	 * Disable this if you modify {@link #inventory} directly between page changes.
+	 *
+	 * @param incrementalRendering True to only write changed slots and keep the viewer on the open inventory
+	 *                             (default), false to clear, repaint and reopen the GUI on every page change
+	 */
+	public void setIncrementalRendering(boolean incrementalRendering) {
+		this.incrementalRendering = incrementalRendering;
+	}
+
+	/**
+	 * Set whether {@link #getItem(Object)} is called on the worker pool.
+	 * Items are built in parallel off the main thread and written to the inventory in one main thread task,
+	 * results for a page the viewer already left are dropped.
+	 * Built items are cached per element so changing back to a page does not build them again.
+	 * <br><br>
+	 * Only enable this if your {@link #getItem(Object)} is thread safe and does not use Bukkit API
+	 * that must be called on the main thread. Elements must implement {@code equals} and {@code hashCode}
+	 * if they are not the same instances between pages.
+	 *
+	 * @param asyncRendering True to build items on the worker pool, false to build them on the main thread (default)
+	 * @see PluginBase#workers()
+	 */
+	public void setAsyncRendering(boolean asyncRendering) {
+		this.asyncRendering = asyncRendering;
+	}
+
+	/**
+	 * Drop the cached item for an element so it is built again next time it is displayed
+	 * Only used with async rendering
+	 *
+	 * @param element The element that changed
+	 */
+	public void invalidateItem(T element) {
+		itemCache.remove(element);
+	}
+
+	/**
+	 * Drop all cached items so they are built again next time they are displayed
+	 * Only used with async rendering
+	 */
+	public void invalidateItems() {
+		itemCache.clear();
+	}
+
+	public int getPage() {
+		return page;
+	}
+
+	/**
+	 * Get the number of pages
+	 * @return The number of pages, or -1 if the source has not returned its count yet
+	 */
+	public int getMaxPages() {
+		return maxPages;
 	}
 
 	/**
 	 * Called to get the item to display for the specified item
-	 * This method is called for every item in the GUI
+	 * This method is called for every item in the GUI, on the worker pool if async rendering is enabled
 	 *
-	 * @param item The corresponding item in the array passed to the constructor
+	 * @param item The corresponding element from the page source
 	 * @return The item to display in the GUI or null to not display anything
 	 */
 	public abstract ItemStack getItem(T item);
 
+	/**
+	 * Routes clicks on the elements of the page, the next/back buttons are {@link me.tntlimit.plugincore.base.Button}s
+	 */
 	@Override
 	public void onInventoryClick(InventoryClickEvent e, Player p, int slot) {
-		if (slot == this.getSize() - 9 && page != 0) {
-			displayPage(page - 1);
-		} else if (slot == this.getSize() - 1 && page != maxPages - 1) {
-			displayPage(page + 1);
-		} else if (slot < this.getSize() - 9) {
-			int index = page * (this.getSize() - 9) + slot;
-			if (index >= items.length) return;
-
-			onInventoryClick(e, p, slot, items[index]);
-		}
+		if (slot >= this.getSize() - 9 || pageItems == null || slot >= pageItems.size()) return;
+
+		onInventoryClick(e, p, slot, pageItems.get(slot));
 	}
 
 	/**
@@ -121,7 +368,7 @@ public abstract class PaginatedGUI<T> extends GUIBase {
 	 * @param e The InventoryClickEvent which was already cancelled
 	 * @param p The player who clicked the item
 	 * @param slot The slot the item was clicked in (Relative to this page)
-	 * @param item The corresponding item in the array passed to the constructor
+	 * @param item The corresponding element from the page source
 	 */
 	public abstract void onInventoryClick(InventoryClickEvent e, Player p, int slot, T item);
 }
@@ -0,0 +1,168 @@
+package me.tntlimit.plugincore.util;
+
+import me.tntlimit.plugincore.base.PluginBase;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * An opt-in cache of permission checks.
+ * Permission plugins can be slow to resolve a node through deep inheritance trees,
+ * this remembers each player's result per node for a short time.
+ * <br><br>
+ * Disabled until {@link #enable(long)} is called, until then {@link #has(CommandSender, String)} asks the sender every time.
+ * Only players are cached, the console and other senders are always asked.
+ * A player's results are forgotten when they log out or change world, call {@link #invalidate(UUID)}
+ * when you change their permissions yourself.
+ * <br><br>
+ * Thread safe.
+ */
+public final class PermissionCache implements Listener {
+	private static final ConcurrentHashMap<UUID, ConcurrentHashMap<String, Decision>> CACHE = new ConcurrentHashMap<>();
+	private static final LongAdder HITS = new LongAdder();
+	private static final LongAdder MISSES = new LongAdder();
+	private static volatile long TTL; // 0 while disabled
+	private static boolean LISTENING;
+
+
+	private PermissionCache() { }
+
+	/**
+	 * Start caching permission checks
+	 *
+	 * @param ttlMillis How long a result is kept in milliseconds, keep this short (a few seconds)
+	 *                  as permission changes made by other plugins are only seen once it expires
+	 */
+	public static synchronized void enable(long ttlMillis) {
+		if (ttlMillis <= 0) throw new IllegalArgumentException("TTL must be positive");
+
+		if (!LISTENING) {
+			PluginBase.INSTANCE.getServer().getPluginManager().registerEvents(new PermissionCache(), PluginBase.INSTANCE);
+			LISTENING = true;
+		}
+
+		TTL = ttlMillis;
+	}
+
+	/**
+	 * Stop caching permission checks and forget all cached results
+	 */
+	public static synchronized void disable() {
+		TTL = 0;
+		CACHE.clear();
+	}
+
+	public static boolean isEnabled() {
+		return TTL > 0;
+	}
+
+	/**
+	 * Check if a sender has a permission, using the cached result if there is one
+	 *
+	 * @param sender The sender to check
+	 * @param permission The permission node
+	 * @return True if the sender has the permission
+	 */
+	public static boolean has(CommandSender sender, String permission) {
+		long ttl = TTL;
+		if (ttl <= 0 || !(sender instanceof Player)) return sender.hasPermission(permission);
+
+		UUID uuid = ((Player) sender).getUniqueId();
+		long now = System.currentTimeMillis();
+		ConcurrentHashMap<String, Decision> decisions = CACHE.get(uuid);
+		if (decisions != null) {
+			Decision decision = decisions.get(permission);
+			if (decision != null && now < decision.expires) {
+				HITS.increment();
+				return decision.allowed;
+			}
+		} else {
+			decisions = CACHE.computeIfAbsent(uuid, k -> new ConcurrentHashMap<>());
+		}
+
+		MISSES.increment();
+		boolean allowed = sender.hasPermission(permission);
+		decisions.put(permission, new Decision(allowed, now + ttl));
+		return allowed;
+	}
+
+	/**
+	 * Forget the cached results of a player
+	 * @param player The player's UUID
+	 */
+	public static void invalidate(UUID player) {
+		CACHE.remove(player);
+	}
+
+	/**
+	 * Forget the cached result of a single permission for a player
+	 *
+	 * @param player The player's UUID
+	 * @param permission The permission node
+	 */
+	public static void invalidate(UUID player, String permission) {
+		ConcurrentHashMap<String, Decision> decisions = CACHE.get(player);
+		if (decisions != null) decisions.remove(permission);
+	}
+
+	/**
+	 * Forget all cached results, for example after reloading your permission plugin
+	 */
+	public static void invalidateAll() {
+		CACHE.clear();
+	}
+
+	public static long getHits() {
+		return HITS.sum();
+	}
+
+	public static long getMisses() {
+		return MISSES.sum();
+	}
+
+	/**
+	 * @return The fraction of checks answered from the cache, between 0 and 1
+	 */
+	public static double getHitRate() {
+		long hits = HITS.sum();
+		long total = hits + MISSES.sum();
+		return total == 0 ? 0 : (double) hits / total;
+	}
+
+	/**
+	 * @return The number of players with cached results
+	 */
+	public static int getSize() {
+		return CACHE.size();
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR)
+	public void onQuit(PlayerQuitEvent e) {
+		invalidate(e.getPlayer().getUniqueId());
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR)
+	public void onChangeWorld(PlayerChangedWorldEvent e) {
+		invalidate(e.getPlayer().getUniqueId()); // Permissions can be per world
+	}
+
+
+	private static final class Decision {
+		private final boolean allowed;
+		private final long expires;
+
+		private Decision(boolean allowed, long expires) {
+			this.allowed = allowed;
+			this.expires = expires;
+		}
+	}
+}
@@ -0,0 +1,189 @@
+package me.tntlimit.plugincore.util;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+
+/**
+ * A case-insensitive trie mapping string keys to values.
+ * Lookups take time proportional to the length of the key, not the number of keys.
+ * Keys sharing a prefix can be listed in alphabetical order without scanning the others.
+ * <br><br>
+ * Not thread safe.
+ *
+ * @param <V> The value type
+ */
+public class PrefixTrie<V> {
+	private final Node<V> root = new Node<>();
+	private int size;
+
+
+	/**
+	 * Map a key to a value
+	 *
+	 * @param key The key, matched case-insensitively
+	 * @param value The value, must not be null
+	 * @return The previous value for the key or null
+	 */
+	public V put(String key, V value) {
+		Node<V> node = root;
+		for (int i = 0; i < key.length(); i++) {
+			char c = Character.toLowerCase(key.charAt(i));
+			Node<V> child = node.child(c);
+			node = child != null ? child : node.addChild(c);
+		}
+
+		V previous = node.value;
+		if (previous == null) size++;
+
+		node.key = key;
+		node.value = value;
+		return previous;
+	}
+
+	/**
+	 * Get the value of a key
+	 *
+	 * @param key The key, matched case-insensitively
+	 * @return The value or null if there is none
+	 */
+	public V get(String key) {
+		Node<V> node = find(key);
+		return node == null ? null : node.value;
+	}
+
+	/**
+	 * Remove a key, nodes no longer leading to a value are pruned
+	 *
+	 * @param key The key, matched case-insensitively
+	 * @return The removed value or null if there was none
+	 */
+	public V remove(String key) {
+		@SuppressWarnings("unchecked")
+		Node<V>[] path = new Node[key.length() + 1];
+		path[0] = root;
+
+		for (int i = 0; i < key.length(); i++) {
+			path[i + 1] = path[i].child(Character.toLowerCase(key.charAt(i)));
+			if (path[i + 1] == null) return null;
+		}
+
+		Node<V> node = path[key.length()];
+		V previous = node.value;
+		if (previous == null) return null;
+
+		node.value = null;
+		node.key = null;
+		size--;
+
+		for (int i = key.length(); i > 0 && path[i].isEmpty(); i--)
+			path[i - 1].removeChild(Character.toLowerCase(key.charAt(i - 1)));
+
+		return previous;
+	}
+
+	/**
+	 * Add the keys starting with a prefix to a collection, in alphabetical order
+	 *
+	 * @param prefix The prefix, matched case-insensitively
+	 * @param limit The maximum number of keys to add
+	 * @param out The collection to add the keys to, in the case they were added with
+	 */
+	public void collectKeys(String prefix, int limit, Collection<? super String> out) {
+		Node<V> node = find(prefix);
+		if (node != null) collect(node, new int[] { limit }, out, true);
+	}
+
+	/**
+	 * Add the values of the keys starting with a prefix to a collection, in alphabetical order of their keys
+	 *
+	 * @param prefix The prefix, matched case-insensitively
+	 * @param limit The maximum number of values to add
+	 * @param out The collection to add the values to
+	 */
+	public void collectValues(String prefix, int limit, Collection<? super V> out) {
+		Node<V> node = find(prefix);
+		if (node != null) collect(node, new int[] { limit }, out, false);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <V> void collect(Node<V> node, int[] remaining, Collection<?> out, boolean keys) {
+		if (remaining[0] <= 0) return;
+
+		if (node.value != null) {
+			((Collection<Object>) out).add(keys ? node.key : node.value);
+			remaining[0]--;
+		}
+
+		for (int i = 0; i < node.size && remaining[0] > 0; i++) collect(node.children[i], remaining, out, keys);
+	}
+
+	private Node<V> find(String key) {
+		Node<V> node = root;
+		for (int i = 0; i < key.length() && node != null; i++) node = node.child(Character.toLowerCase(key.charAt(i)));
+
+		return node;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public void clear() {
+		root.size = 0;
+		root.value = null;
+		root.key = null;
+		size = 0;
+	}
+
+
+	private static final class Node<V> {
+		private static final char[] NO_KEYS = new char[0];
+		private char[] keys = NO_KEYS; // Sorted, parallel to children
+		private Node<V>[] children;
+		private int size;
+		private String key; // Original case, set if value is set
+		private V value;
+
+		private Node<V> child(char c) {
+			int index = Arrays.binarySearch(keys, 0, size, c);
+			return index >= 0 ? children[index] : null;
+		}
+
+		@SuppressWarnings("unchecked")
+		private Node<V> addChild(char c) {
+			if (size == keys.length) {
+				int capacity = Math.max(2, size * 2);
+				keys = Arrays.copyOf(keys, capacity);
+				children = children == null ? new Node[capacity] : Arrays.copyOf(children, capacity);
+			}
+
+			int index = -(Arrays.binarySearch(keys, 0, size, c) + 1);
+			System.arraycopy(keys, index, keys, index + 1, size - index);
+			System.arraycopy(children, index, children, index + 1, size - index);
+
+			Node<V> child = new Node<>();
+			keys[index] = c;
+			children[index] = child;
+			size++;
+			return child;
+		}
+
+		private void removeChild(char c) {
+			int index = Arrays.binarySearch(keys, 0, size, c);
+			if (index < 0) return;
+
+			System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+			System.arraycopy(children, index + 1, children, index, size - index - 1);
+			children[--size] = null;
+		}
+
+		private boolean isEmpty() {
+			return value == null && size == 0;
+		}
+	}
+}
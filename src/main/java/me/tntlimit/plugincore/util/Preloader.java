@@ -0,0 +1,151 @@
+package me.tntlimit.plugincore.util;
+
+import me.tntlimit.plugincore.base.PluginBase;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+
+/**
+ * Loads messages, config and resources in parallel during startup,
+ * so they are not loaded from disk the first time they are used on the main thread.
+ * <br><br>
+ * Example, from your {@link PluginBase#onEnable()}:
+ * <pre>
+ * preload()
+ *     .messages(Locale.GERMAN)
+ *     .config()
+ *     .items("gui.filler", "gui.close")
+ *     .resource("kits.json")
+ *     .run();
+ * </pre>
+ * The time each task took is logged and returned.
+ * <br><br>
+ * The config is loaded first on the calling thread, before the other tasks are started,
+ * since loading it clears the cached config items and is not thread safe.
+ *
+ * @see PluginBase#preload()
+ */
+public class Preloader {
+	private final Map<String, Runnable> tasks = new LinkedHashMap<>();
+	private boolean config;
+
+
+	/**
+	 * Load messages.properties and optionally extra locales
+	 * @param locales Extra locales to load
+	 * @see I18n#load(Locale...)
+	 */
+	public Preloader messages(Locale... locales) {
+		return add("messages", () -> I18n.load(locales));
+	}
+
+	/**
+	 * Load config.yml, on the calling thread before the other tasks
+	 */
+	public Preloader config() {
+		this.config = true;
+		return this;
+	}
+
+	/**
+	 * Build and cache items from the config, invalid items are reported now instead of when first displayed.
+	 * Also loads the config, see {@link #config()}.
+	 * @param keys The paths to the items in the config
+	 * @see Utils#getItemFromConfig(String, org.bukkit.inventory.ItemStack)
+	 */
+	public Preloader items(String... keys) {
+		config();
+		return add("items", () -> {
+			for (String key : keys) Utils.getSharedItemFromConfig(key, null);
+		});
+	}
+
+	/**
+	 * Load a resource into memory
+	 * @param path The path to the resource
+	 * @see Utils#preloadResource(String)
+	 */
+	public Preloader resource(String path) {
+		return add(path, () -> Utils.preloadResource(path));
+	}
+
+	/**
+	 * Add a custom task
+	 *
+	 * @param name The name the task's time is reported under
+	 * @param task The task, it will run on a worker thread
+	 */
+	public Preloader add(String name, Runnable task) {
+		tasks.put(name, task);
+		return this;
+	}
+
+	/**
+	 * Run all tasks in parallel on the worker pool without waiting for them, the config is loaded before returning.
+	 * Tasks that fail are logged and do not stop the others.
+	 *
+	 * @return A future completed with the time each task took in milliseconds, the config first and then the others
+	 *         in the order they were added
+	 */
+	public CompletableFuture<Map<String, Double>> runAsync() {
+		long start = System.nanoTime();
+		Map<String, Double> timings = Collections.synchronizedMap(new LinkedHashMap<>());
+		List<CompletableFuture<Void>> futures = new ArrayList<>(tasks.size());
+
+		if (config) {
+			try {
+				PluginBase.INSTANCE.getConfig();
+			} catch (Exception e) {
+				PluginBase.INSTANCE.getLogger().log(Level.WARNING, "Failed to preload config", e);
+			}
+
+			timings.put("config", millisSince(start));
+		}
+
+		for (Map.Entry<String, Runnable> task : tasks.entrySet()) {
+			timings.put(task.getKey(), 0.0); // Keep insertion order
+			futures.add(CompletableFuture.runAsync(() -> {
+				long taskStart = System.nanoTime();
+				try {
+					task.getValue().run();
+				} catch (Exception e) {
+					PluginBase.INSTANCE.getLogger().log(Level.WARNING, "Failed to preload " + task.getKey(), e);
+				}
+
+				timings.put(task.getKey(), millisSince(taskStart));
+			}, PluginBase.workers()));
+		}
+
+		return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).thenApply(v -> {
+			StringBuilder report = new StringBuilder("Preloaded in ")
+					.append(String.format("%.1fms", millisSince(start)));
+
+			for (Map.Entry<String, Double> timing : timings.entrySet())
+				report.append(String.format(", %s %.1fms", timing.getKey(), timing.getValue()));
+
+			PluginBase.INSTANCE.getLogger().info(report.toString());
+			return timings;
+		});
+	}
+
+	/**
+	 * Run all tasks in parallel on the worker pool and wait for them to finish
+	 * @return The time each task took in milliseconds, in the order they were added
+	 * @see #runAsync()
+	 */
+	public Map<String, Double> run() {
+		return runAsync().join();
+	}
+
+	private static double millisSince(long start) {
+		return (System.nanoTime() - start) / (double) TimeUnit.MILLISECONDS.toNanos(1);
+	}
+}
@@ -0,0 +1,229 @@
+package me.tntlimit.plugincore.util;
+
+import me.tntlimit.plugincore.base.PluginBase;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+
+/**
+ * Loads text resources from the plugin data folder, creating them from the jar if they do not exist.
+ * <br><br>
+ * Files are read in bulk, files over {@value #MMAP_THRESHOLD} bytes are memory mapped.
+ * Contents are cached keyed by path, and read again when the file's modification time or size changes.
+ * Contents loaded with {@link #preload(String)} are served from memory without checking the file
+ * until {@link #invalidate(String)} is called.
+ * For large files use {@link #openReader(String)} or {@link #forEachLine(String, Consumer)} to stream them
+ * instead of loading them into one string.
+ * <br><br>
+ * All methods are thread safe.
+ */
+public class Resources {
+	private static final int MMAP_THRESHOLD = 1024 * 1024;
+	private static final ConcurrentHashMap<String, Cached> CACHE = new ConcurrentHashMap<>();
+
+
+	/**
+	 * Get the UTF-8 contents of a resource in the plugin data folder.
+	 * If it doesn't exist it is created from the default in the jar first,
+	 * if it cannot be created the default is returned.
+	 *
+	 * @param path The path to the resource, relative to the data folder
+	 * @return The contents of the resource or null if it doesn't exist on disk or in the jar file
+	 */
+	public static String read(String path) {
+		Cached cached = CACHE.get(path);
+		if (cached != null && cached.preloaded) return cached.contents;
+
+		return load(path, cached, false);
+	}
+
+	/**
+	 * Read a resource like {@link #read(String)} and keep its contents in memory.
+	 * Later reads are served without checking the file on disk, until {@link #invalidate(String)} is called.
+	 *
+	 * @param path The path to the resource, relative to the data folder
+	 * @return The contents of the resource or null if it doesn't exist on disk or in the jar file
+	 */
+	public static String preload(String path) {
+		return load(path, CACHE.get(path), true);
+	}
+
+	private static String load(String path, Cached cached, boolean preload) {
+		Path file = getOrCreate(path);
+		if (file == null) return readDefault(path);
+
+		try {
+			BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+			long modified = attributes.lastModifiedTime().toMillis();
+			long size = attributes.size();
+
+			if (cached != null && cached.modified == modified && cached.size == size) {
+				if (preload && !cached.preloaded) CACHE.put(path, new Cached(modified, size, cached.contents, true));
+				return cached.contents;
+			}
+
+			String contents = readFile(file, size);
+			CACHE.put(path, new Cached(modified, size, contents, preload));
+			return contents;
+		} catch (IOException e) {
+			PluginBase.INSTANCE.getLogger().warning("Failed to read " + path + ": " + e.getMessage());
+			return null;
+		}
+	}
+
+	/**
+	 * Open a UTF-8 reader over a resource in the plugin data folder, creating it from the jar if needed.
+	 * The contents are not cached. The caller must close the reader.
+	 *
+	 * @param path The path to the resource, relative to the data folder
+	 * @return The reader or null if the resource doesn't exist on disk or in the jar file
+	 * @throws IOException If the file could not be opened
+	 */
+	public static BufferedReader openReader(String path) throws IOException {
+		Path file = getOrCreate(path);
+		if (file == null) return null;
+
+		return Files.newBufferedReader(file, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Stream the lines of a resource in the plugin data folder, creating it from the jar if needed.
+	 * The contents are not cached.
+	 *
+	 * @param path The path to the resource, relative to the data folder
+	 * @param action Called for each line
+	 * @return False if the resource doesn't exist or could not be read
+	 */
+	public static boolean forEachLine(String path, Consumer<String> action) {
+		try (BufferedReader reader = openReader(path)) {
+			if (reader == null) return false;
+
+			String line;
+			while ((line = reader.readLine()) != null) action.accept(line);
+			return true;
+		} catch (IOException | UncheckedIOException e) {
+			PluginBase.INSTANCE.getLogger().warning("Failed to read " + path + ": " + e.getMessage());
+			return false;
+		}
+	}
+
+	/**
+	 * Get a lazily populated stream of the lines of a resource.
+	 * The stream must be closed, use it in a try-with-resources block.
+	 *
+	 * @param path The path to the resource, relative to the data folder
+	 * @return The lines, or an empty stream if the resource doesn't exist
+	 * @throws IOException If the file could not be opened
+	 */
+	public static Stream<String> lines(String path) throws IOException {
+		Path file = getOrCreate(path);
+		if (file == null) return Stream.empty();
+
+		return Files.lines(file, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Read the default of a resource from the jar, used when it could not be written to the data folder
+	 */
+	private static String readDefault(String path) {
+		InputStream stream = PluginBase.INSTANCE.getResource(path);
+		if (stream == null) return null;
+
+		try {
+			return readFully(stream);
+		} catch (IOException e) {
+			PluginBase.INSTANCE.getLogger().warning("Failed to load default " + path + " file: " + e.getMessage());
+			return null;
+		}
+	}
+
+	/**
+	 * Drop the cached contents of a resource so it is read from disk again
+	 * @param path The path to the resource
+	 */
+	public static void invalidate(String path) {
+		CACHE.remove(path);
+	}
+
+	/**
+	 * Drop all cached contents
+	 */
+	public static void invalidateAll() {
+		CACHE.clear();
+	}
+
+	/**
+	 * Read the UTF-8 contents of an input stream in bulk and close it
+	 *
+	 * @param stream The input stream to read
+	 * @return The contents of the stream
+	 * @throws IOException If the stream could not be read
+	 */
+	public static String readFully(InputStream stream) throws IOException {
+		try (InputStream in = stream) {
+			byte[] buffer = new byte[8192];
+			int length = 0;
+			int read;
+
+			while ((read = in.read(buffer, length, buffer.length - length)) != -1) {
+				length += read;
+				if (length == buffer.length) buffer = Arrays.copyOf(buffer, buffer.length * 2);
+			}
+
+			return new String(buffer, 0, length, StandardCharsets.UTF_8);
+		}
+	}
+
+	private static Path getOrCreate(String path) {
+		File file = new File(PluginBase.INSTANCE.getDataFolder(), path);
+		if (file.isFile()) return file.toPath();
+
+		try {
+			PluginBase.INSTANCE.saveResource(path, false); // Write the default file from the jar
+		} catch (IllegalArgumentException e) {
+			PluginBase.INSTANCE.getLogger().warning("Failed to load default " + path + " file: " + e.getMessage());
+			return null;
+		}
+
+		return file.isFile() ? file.toPath() : null;
+	}
+
+	private static String readFile(Path file, long size) throws IOException {
+		if (size < MMAP_THRESHOLD) return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			return StandardCharsets.UTF_8.decode(buffer).toString();
+		}
+	}
+
+
+	private static final class Cached {
+		private final long modified;
+		private final long size;
+		private final String contents;
+		private final boolean preloaded; // Served without checking the file
+
+		private Cached(long modified, long size, String contents, boolean preloaded) {
+			this.modified = modified;
+			this.size = size;
+			this.contents = contents;
+			this.preloaded = preloaded;
+		}
+	}
+}
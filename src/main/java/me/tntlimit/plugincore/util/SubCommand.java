@@ -0,0 +1,361 @@
+package me.tntlimit.plugincore.util;
+
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+
+
+/**
+ * A node in a declarative subcommand tree.
+ * Subcommands are routed through a case-insensitive {@link PrefixTrie}, so dispatch takes time proportional to the
+ * number of arguments rather than the number of subcommands.
+ * Arguments are parsed by {@link ArgumentParser}s declared when registering.
+ * <br><br>
+ * Example, in a {@link me.tntlimit.plugincore.base.CommandBase} constructor:
+ * <pre>
+ * subcommand("ban")
+ *     .permission("punish.ban")
+ *     .argument("target", ArgumentParser.player())
+ *     .optionalArgument("duration", ArgumentParser.duration())
+ *     .executes(ctx -&gt; ban(ctx.get("target"), ctx.get("duration"), ctx.getRemaining()));
+ * </pre>
+ */
+public class SubCommand {
+	private final SubCommand parent;
+	private final String name;
+	private final PrefixTrie<SubCommand> children = new PrefixTrie<>();
+	private final List<Argument> arguments = new ArrayList<>(2);
+	private String permission; // null if no permission required
+	private boolean allowedInConsole = true;
+	private Handler handler;
+	private Cooldown cooldown; // null if no cooldown
+
+
+	/**
+	 * Creates the root of a subcommand tree
+	 * @param name The name of the command
+	 */
+	public SubCommand(String name) {
+		this(null, name);
+	}
+
+	private SubCommand(SubCommand parent, String name) {
+		this.parent = parent;
+		this.name = name;
+	}
+
+	/**
+	 * Get or create a child subcommand
+	 *
+	 * @param name The name of the subcommand
+	 * @param aliases Other names routing to the same subcommand
+	 * @return The child
+	 */
+	public SubCommand child(String name, String... aliases) {
+		SubCommand child = children.get(name);
+		if (child == null) {
+			child = new SubCommand(this, name);
+			children.put(name, child);
+		}
+
+		for (String alias : aliases) children.put(alias, child);
+		return child;
+	}
+
+	/**
+	 * Declare a required argument, parsed after the subcommand name
+	 *
+	 * @param name The name used to get the value from the {@link CommandContext}
+	 * @param parser The parser for the argument
+	 */
+	public SubCommand argument(String name, ArgumentParser<?> parser) {
+		if (!arguments.isEmpty() && arguments.get(arguments.size() - 1).optional)
+			throw new IllegalStateException("Required argument " + name + " cannot follow an optional argument");
+
+		arguments.add(new Argument(name, parser, false));
+		return this;
+	}
+
+	/**
+	 * Declare an optional argument, parsed after the required ones
+	 *
+	 * @param name The name used to get the value from the {@link CommandContext}
+	 * @param parser The parser for the argument
+	 */
+	public SubCommand optionalArgument(String name, ArgumentParser<?> parser) {
+		arguments.add(new Argument(name, parser, true));
+		return this;
+	}
+
+	/**
+	 * @param permission The permission required to run this subcommand and its children, or null for none
+	 */
+	public SubCommand permission(String permission) {
+		this.permission = permission;
+		return this;
+	}
+
+	/**
+	 * Do not allow this subcommand and its children to be run from the console
+	 */
+	public SubCommand playerOnly() {
+		this.allowedInConsole = false;
+		return this;
+	}
+
+	/**
+	 * Limit how often players can run this subcommand.
+	 * Only successful runs count, a use is taken once the arguments were parsed. The console is never limited.
+	 *
+	 * @param cooldown The cooldown or rate limit
+	 */
+	public SubCommand cooldown(Cooldown cooldown) {
+		this.cooldown = cooldown;
+		return this;
+	}
+
+	/**
+	 * @param handler Called when this subcommand is run and its arguments were parsed
+	 */
+	public SubCommand executes(Handler handler) {
+		this.handler = handler;
+		return this;
+	}
+
+	/**
+	 * Route a command to the matching subcommand, check its permission and parse its arguments, then run it.
+	 * The sender is told what went wrong if any of those fail.
+	 *
+	 * @param sender The sender of the command
+	 * @param label The alias used to execute the command
+	 * @param args The arguments passed to the command
+	 */
+	public void dispatch(CommandSender sender, String label, String[] args) {
+		dispatch(sender, label, args, null);
+	}
+
+	/**
+	 * Route a command to the matching subcommand, with a cooldown on the whole command.
+	 * A use of the command cooldown is only taken once the subcommand's arguments were parsed, together with the
+	 * subcommand's own cooldown.
+	 *
+	 * @param sender The sender of the command
+	 * @param label The alias used to execute the command
+	 * @param args The arguments passed to the command
+	 * @param commandCooldown The cooldown on the whole command, or null
+	 * @see #dispatch(CommandSender, String, String[])
+	 */
+	public void dispatch(CommandSender sender, String label, String[] args, Cooldown commandCooldown) {
+		dispatch(sender, label, args, commandCooldown, Runnable::run);
+	}
+
+	/**
+	 * Route a command to the matching subcommand, running its handler through an executor.
+	 * Permissions, arguments and cooldowns are still checked on the calling thread.
+	 *
+	 * @param sender The sender of the command
+	 * @param label The alias used to execute the command
+	 * @param args The arguments passed to the command
+	 * @param commandCooldown The cooldown on the whole command, or null
+	 * @param executor Runs the handler once every check passed
+	 * @return True if the handler was handed to the executor, false if the sender was told why not
+	 * @see #dispatch(CommandSender, String, String[], Cooldown)
+	 */
+	public boolean dispatch(CommandSender sender, String label, String[] args, Cooldown commandCooldown, Executor executor) {
+		SubCommand node = this;
+		int offset = 0;
+
+		while (true) {
+			if (!node.allowedInConsole && !(sender instanceof Player)) {
+				sender.sendMessage("You must be a player to use this command");
+				return false;
+			}
+
+			if (node.permission != null && !PermissionCache.has(sender, node.permission)) {
+				sender.sendMessage(I18n.format("no-permission"));
+				return false;
+			}
+
+			SubCommand child = offset < args.length ? node.children.get(args[offset]) : null;
+			if (child == null) break;
+
+			node = child;
+			offset++;
+		}
+
+		if (node.handler == null) {
+			sender.sendMessage(node.getUsage(label));
+			return false;
+		}
+
+		Object[] values = new Object[node.arguments.size()];
+		for (int i = 0; i < values.length; i++) {
+			Argument argument = node.arguments.get(i);
+			if (offset + i >= args.length) {
+				if (argument.optional) break;
+
+				sender.sendMessage(node.getUsage(label));
+				return false;
+			}
+
+			try {
+				values[i] = argument.parser.parse(sender, args[offset + i]);
+			} catch (IllegalArgumentException e) {
+				sender.sendMessage(e.getMessage());
+				return false;
+			}
+		}
+
+		if (sender instanceof Player && !acquire(((Player) sender).getUniqueId(), sender, commandCooldown, node.cooldown)) return false;
+
+		Handler handler = node.handler;
+		CommandContext context = new CommandContext(sender, label, args, offset, node, values);
+		executor.execute(() -> handler.execute(context));
+		return true;
+	}
+
+	/**
+	 * Use both cooldowns, giving back the use of the first if the second denies the player
+	 * @return False if the player must wait, they were told how long
+	 */
+	private static boolean acquire(UUID player, CommandSender sender, Cooldown first, Cooldown second) {
+		long[] undo = first != null && second != null ? new long[2] : null;
+		long remaining = first != null ? first.tryAcquire(player, undo) : 0;
+		if (remaining > 0) {
+			sender.sendMessage(first.getMessage(remaining));
+			return false;
+		}
+
+		remaining = second != null ? second.tryAcquire(player) : 0;
+		if (remaining > 0) {
+			if (undo != null) first.undo(player, undo);
+			sender.sendMessage(second.getMessage(remaining));
+			return false;
+		}
+
+		return true;
+	}
+
+	/**
+	 * Get tab completions for a partially typed command.
+	 * Subcommand names are completed from the trie, skipping those the sender has no permission for,
+	 * and arguments are completed by their {@link ArgumentParser}.
+	 *
+	 * @param sender The sender tab completing
+	 * @param args The arguments typed so far, the last one being completed
+	 * @return The completions
+	 */
+	public List<String> complete(CommandSender sender, String[] args) {
+		if (args.length == 0) return Utils.EMPTY_LIST;
+
+		SubCommand node = this;
+		int offset = 0;
+		while (offset < args.length - 1) {
+			SubCommand child = node.children.get(args[offset]);
+			if (child == null) break;
+			if (!child.canUse(sender)) return Utils.EMPTY_LIST;
+
+			node = child;
+			offset++;
+		}
+
+		String prefix = args[args.length - 1];
+		int argument = args.length - 1 - offset;
+		List<String> completions = new ArrayList<>();
+
+		if (argument == 0 && !node.children.isEmpty()) {
+			List<SubCommand> matches = new ArrayList<>();
+			List<String> names = new ArrayList<>();
+			node.children.collectValues(prefix, Integer.MAX_VALUE, matches);
+			node.children.collectKeys(prefix, Integer.MAX_VALUE, names);
+
+			for (int i = 0; i < names.size(); i++)
+				if (matches.get(i).canUse(sender)) completions.add(names.get(i));
+		}
+
+		if (argument < node.arguments.size()) completions.addAll(node.arguments.get(argument).parser.complete(sender, prefix));
+		return completions;
+	}
+
+	private boolean canUse(CommandSender sender) {
+		if (!allowedInConsole && !(sender instanceof Player)) return false;
+		return permission == null || PermissionCache.has(sender, permission);
+	}
+
+	/**
+	 * Get a usage message listing the arguments or subcommands of this node
+	 *
+	 * @param label The alias used to execute the command
+	 * @return The usage message
+	 */
+	public String getUsage(String label) {
+		StringBuilder usage = new StringBuilder("Usage: /").append(label);
+		appendPath(usage);
+
+		if (handler == null && !children.isEmpty()) {
+			List<String> names = new ArrayList<>();
+			children.collectKeys("", Integer.MAX_VALUE, names);
+			usage.append(" <").append(String.join("|", names)).append('>');
+		}
+
+		for (Argument argument : arguments)
+			usage.append(argument.optional ? " [" : " <").append(argument.name).append(argument.optional ? ']' : '>');
+
+		return usage.toString();
+	}
+
+	private void appendPath(StringBuilder builder) {
+		if (parent == null) return;
+
+		parent.appendPath(builder);
+		builder.append(' ').append(name);
+	}
+
+	int indexOf(String argument) {
+		for (int i = 0; i < arguments.size(); i++)
+			if (arguments.get(i).name.equals(argument)) return i;
+
+		throw new IllegalArgumentException("Unknown argument " + argument + " for " + name);
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public String getPermission() {
+		return permission;
+	}
+
+	public boolean isAllowedInConsole() {
+		return allowedInConsole;
+	}
+
+	public boolean hasChildren() {
+		return !children.isEmpty();
+	}
+
+
+	/**
+	 * Runs a subcommand
+	 */
+	@FunctionalInterface
+	public interface Handler {
+		void execute(CommandContext context);
+	}
+
+	private static final class Argument {
+		private final String name;
+		private final ArgumentParser<?> parser;
+		private final boolean optional;
+
+		private Argument(String name, ArgumentParser<?> parser, boolean optional) {
+			this.name = name;
+			this.parser = parser;
+			this.optional = optional;
+		}
+	}
+}
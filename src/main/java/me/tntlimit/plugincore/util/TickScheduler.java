@@ -0,0 +1,257 @@
+package me.tntlimit.plugincore.util;
+
+import me.tntlimit.plugincore.base.PluginBase;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+
+
+/**
+ * Runs main thread work within a time budget per tick.
+ * Use this for large batches of work that must run on the main thread, such as filling many inventories,
+ * touching many entities or giving items to every player, so they are spread over several ticks instead of causing lag.
+ * <br><br>
+ * Work is run in priority order, first come first served within a priority.
+ * Each tick work runs until the budget is used up (2ms by default), the rest carries over to the next tick.
+ * At least one unit of work runs every tick, so a budget that is too small slows work down but never stops it.
+ * <br><br>
+ * Get the scheduler with {@link PluginBase#scheduler()}. Work can be submitted from any thread.
+ */
+public final class TickScheduler implements Runnable {
+	private final Queue<Job>[] queues;
+	private final AtomicInteger pending = new AtomicInteger();
+	private final LongAdder unitsRun = new LongAdder();
+	private volatile long budget = TimeUnit.MILLISECONDS.toNanos(2);
+	private volatile long lastTickNanos;
+	private volatile double averageTickNanos;
+	private volatile int lastTickUnits;
+	private BukkitTask task;
+
+
+	@SuppressWarnings("unchecked")
+	public TickScheduler() {
+		this.queues = new Queue[Priority.values().length];
+		for (int i = 0; i < queues.length; i++) queues[i] = new ConcurrentLinkedQueue<>();
+	}
+
+	/**
+	 * Start running work every tick, called by {@link PluginBase#scheduler()}
+	 */
+	public synchronized void start() {
+		if (task == null) task = PluginBase.INSTANCE.getServer().getScheduler().runTaskTimer(PluginBase.INSTANCE, this, 1, 1);
+	}
+
+	/**
+	 * Stop running work, work still queued is dropped and its futures are cancelled
+	 */
+	public synchronized void stop() {
+		if (task != null) task.cancel();
+		task = null;
+
+		for (Queue<Job> queue : queues) {
+			Job job;
+			while ((job = queue.poll()) != null) {
+				pending.decrementAndGet();
+				job.future.cancel(false);
+			}
+		}
+	}
+
+	/**
+	 * Run a task on the main thread within the tick budget
+	 *
+	 * @param task The task
+	 * @return A future completed once the task ran
+	 */
+	public CompletableFuture<Void> run(Runnable task) {
+		return run(task, Priority.NORMAL);
+	}
+
+	/**
+	 * Run a task on the main thread within the tick budget
+	 *
+	 * @param task The task
+	 * @param priority The priority of the task
+	 * @return A future completed once the task ran
+	 */
+	public CompletableFuture<Void> run(Runnable task, Priority priority) {
+		return submit(new Job(priority) {
+			@Override
+			boolean step() {
+				task.run();
+				return true;
+			}
+		});
+	}
+
+	/**
+	 * Run an action for each element on the main thread, as many elements per tick as fit in the budget.
+	 * <br><br>
+	 * Example, giving every online player an item:
+	 * <pre>
+	 * PluginBase.scheduler().forEach(new ArrayList&lt;&gt;(Bukkit.getOnlinePlayers()), p -&gt; p.getInventory().addItem(item));
+	 * </pre>
+	 *
+	 * @param elements The elements, iterated on the main thread across several ticks so pass a copy if it may change
+	 * @param action The action to run for each element
+	 * @return A future completed once the action ran for every element
+	 */
+	public <T> CompletableFuture<Void> forEach(Iterable<T> elements, Consumer<? super T> action) {
+		return forEach(elements, action, Priority.NORMAL);
+	}
+
+	/**
+	 * @param priority The priority of the work
+	 * @see #forEach(Iterable, Consumer)
+	 */
+	public <T> CompletableFuture<Void> forEach(Iterable<T> elements, Consumer<? super T> action, Priority priority) {
+		return submit(new Job(priority) {
+			private Iterator<T> iterator;
+
+			@Override
+			boolean step() {
+				if (iterator == null) iterator = elements.iterator();
+				if (iterator.hasNext()) action.accept(iterator.next());
+				return !iterator.hasNext();
+			}
+		});
+	}
+
+	private CompletableFuture<Void> submit(Job job) {
+		pending.incrementAndGet();
+		queues[job.priority.ordinal()].add(job);
+		return job.future;
+	}
+
+	/**
+	 * Runs work until the budget is used up, called every tick
+	 */
+	@Override
+	public void run() {
+		if (pending.get() == 0) {
+			record(0, 0);
+			return;
+		}
+
+		long start = System.nanoTime();
+		long deadline = start + budget;
+		int units = 0;
+
+		for (Queue<Job> queue : queues) {
+			Job job;
+			while ((job = queue.peek()) != null) {
+				if (units > 0 && System.nanoTime() - deadline >= 0) break;
+
+				units++;
+				boolean finished;
+				try {
+					finished = job.step();
+				} catch (Throwable e) {
+					PluginBase.INSTANCE.getLogger().log(Level.WARNING, "Error while running scheduled work", e);
+					job.future.completeExceptionally(e);
+					finished = true;
+				}
+
+				if (finished) {
+					queue.poll();
+					pending.decrementAndGet();
+					job.future.complete(null);
+				}
+			}
+
+			if (job != null) break; // Out of budget
+		}
+
+		unitsRun.add(units);
+		record(System.nanoTime() - start, units);
+	}
+
+	private void record(long nanos, int units) {
+		lastTickNanos = nanos;
+		lastTickUnits = units;
+		averageTickNanos = averageTickNanos * 0.95 + nanos * 0.05; // Exponential moving average over roughly the last 20 ticks
+	}
+
+	/**
+	 * Set the time work may run for each tick
+	 * @param budget The budget, defaults to 2ms
+	 */
+	public void setBudget(long budget, TimeUnit unit) {
+		if (budget <= 0) throw new IllegalArgumentException("Budget must be positive");
+		this.budget = unit.toNanos(budget);
+	}
+
+	/**
+	 * @return The budget in milliseconds
+	 */
+	public double getBudgetMillis() {
+		return budget / 1e6;
+	}
+
+	/**
+	 * Get the amount of work waiting to run
+	 * @return The number of tasks and forEach batches that have not finished
+	 */
+	public int getQueueDepth() {
+		return pending.get();
+	}
+
+	/**
+	 * @return The time spent running work during the last tick, in milliseconds
+	 */
+	public double getLastTickMillis() {
+		return lastTickNanos / 1e6;
+	}
+
+	/**
+	 * @return The time spent running work per tick averaged over roughly the last second, in milliseconds
+	 */
+	public double getAverageTickMillis() {
+		return averageTickNanos / 1e6;
+	}
+
+	/**
+	 * @return The number of units of work run during the last tick (tasks or forEach elements)
+	 */
+	public int getLastTickUnits() {
+		return lastTickUnits;
+	}
+
+	/**
+	 * @return The total number of units of work run
+	 */
+	public long getUnitsRun() {
+		return unitsRun.sum();
+	}
+
+
+	public enum Priority {
+		HIGH, NORMAL, LOW
+	}
+
+	/**
+	 * Work run in one or more steps, main thread only once submitted
+	 */
+	private abstract static class Job {
+		private final Priority priority;
+		private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+		private Job(Priority priority) {
+			this.priority = priority;
+		}
+
+		/**
+		 * Run one unit of work
+		 * @return True once all the work is done
+		 */
+		abstract boolean step();
+	}
+}
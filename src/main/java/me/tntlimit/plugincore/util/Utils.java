@@ -3,62 +3,67 @@ package me.tntlimit.plugincore.util;
 import me.tntlimit.plugincore.base.PluginBase;
 import org.bukkit.ChatColor;
 import org.bukkit.Material;
-import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.inventory.ItemStack;
-import org.bukkit.inventory.meta.ItemMeta;
 
-import java.io.*;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
-import java.util.ArrayList;
+import java.io.InputStream;
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 
 public class Utils {
 	public static final List<String> EMPTY_LIST = Collections.emptyList();
 	private static ItemStack FILLER;
+	private static ItemStack PLACEHOLDER;
 	private static ItemStack INVALID;
+	private static final ConcurrentHashMap<String, Prototype> ITEMS = new ConcurrentHashMap<>(); // Prototypes by config path
+	private static final AtomicInteger GENERATION = new AtomicInteger(); // Incremented when config items are invalidated
 
 
 	/**
 	 * This method makes sure a resource exists, if so it will return the file contents,
 	 * if not it will create the file and return the default contents from the jar.
+	 * Contents are cached in memory and read again when the file changes on disk.
 	 *
 	 * @param path The path to the resource
 	 * @return The contents of the resource or null if it doesn't exist in the jar file
+	 * @see Resources
 	 */
 	public static String getOrCreateResource(String path) {
-		try { // Try to read the file contents from disk in plugin data folder
-			return inputStreamToString(Files.newInputStream(new File(PluginBase.INSTANCE.getDataFolder(), path).toPath()));
-		} catch (Exception e) {
-			PluginBase.INSTANCE.saveResource(path, false); // Will write default file to disk if it doesn't exist
-
-			try {
-				return inputStreamToString(PluginBase.INSTANCE.getResource(path)); // Get internal version from jar or newly written file
-			} catch (Exception e1) {
-				PluginBase.INSTANCE.getLogger().warning("Failed to load default " + path + "file: " + e1.getMessage());
-				return null;
-			}
-		}
+		return Resources.read(path);
 	}
 
 	/**
-	 * Read the UTF-8 contents of an input stream
-	 * Should only be used for small files
+	 * Read a resource like {@link #getOrCreateResource(String)} so its contents are in memory before they are first used.
+	 * Preloaded resources are served without checking the file on disk until {@link #invalidateResource(String)} is called.
+	 *
+	 * @param path The path to the resource
+	 * @return The contents of the resource or null if it doesn't exist in the jar file
+	 */
+	public static String preloadResource(String path) {
+		return Resources.preload(path);
+	}
+
+	/**
+	 * Forget the cached contents of a resource so it is read from disk again
+	 * @param path The path to the resource
+	 */
+	public static void invalidateResource(String path) {
+		Resources.invalidate(path);
+	}
+
+	/**
+	 * Read the UTF-8 contents of an input stream in bulk
 	 *
 	 * @param stream The input stream to read
 	 * @return The contents of the stream or null if an error occurred
+	 * @see Resources#readFully(InputStream)
 	 */
 	public static String inputStreamToString(InputStream stream) {
 		try {
-			StringBuilder textBuilder = new StringBuilder();
-			try (Reader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8))) {
-				int c;
-				while ((c = reader.read()) != -1) textBuilder.append((char) c);
-			}
-
-			return textBuilder.toString();
+			return Resources.readFully(stream);
 		} catch (Exception e) {
 			return null;
 		}
@@ -79,36 +84,60 @@ public class Utils {
 	 * <br><br>
 	 * Amount is optional and defaults to 1<br>
 	 * Data is optional and defaults to 0
+	 * <br><br>
+	 * The item is built once per config path and cached until the config is reloaded,
+	 * this returns a copy of it which is safe to modify.
+	 * Invalid config is reported once, when the item is first loaded.
 	 *
 	 * @param key The path to the item in the config
 	 * @param def The default item to return if the config is invalid
 	 * @return The item or the default item if the config is invalid
+	 * @see #getSharedItemFromConfig(String, ItemStack)
 	 */
-	@SuppressWarnings("deprecation")
 	public static ItemStack getItemFromConfig(String key, ItemStack def) {
-		FileConfiguration config = PluginBase.INSTANCE.getConfig();
-		int amount = config.getInt(key + ".amount", 1);
-		int data = config.getInt(key + ".data", 0);
-		String material = config.getString(key + ".material");
-		String name = config.getString(key + ".name");
-		ArrayList<String> lore = (ArrayList<String>) config.getStringList(key + ".lore");
+		ItemStack prototype = getSharedItemFromConfig(key, null);
+		return prototype != null ? prototype.clone() : def;
+	}
 
-		try {
-			ItemStack itemStack = new ItemStack(Material.valueOf(material), amount, (short) data);
-			ItemMeta itemMeta = itemStack.getItemMeta();
-			if (itemMeta == null) throw new NullPointerException("ItemMeta is null");
+	/**
+	 * Get the cached item from the config without copying it.
+	 * The returned item is shared by every caller, so it <b>must not</b> be modified.
+	 * Use this when you only place the item somewhere, for example in a GUI slot.
+	 *
+	 * @param key The path to the item in the config
+	 * @param def The default item to return if the config is invalid
+	 * @return The shared item or the default item if the config is invalid
+	 * @see #getItemFromConfig(String, ItemStack)
+	 */
+	public static ItemStack getSharedItemFromConfig(String key, ItemStack def) {
+		int generation = GENERATION.get(); // Read before loading, so an item loaded from a replaced config is never used later
+		Prototype prototype = ITEMS.get(key);
+		if (prototype == null || prototype.generation != generation) {
+			// Not computeIfAbsent, the first getConfig() call reloads the config which clears this map
+			prototype = new Prototype(generation, loadItem(key));
+			ITEMS.merge(key, prototype, (existing, loaded) -> existing.generation >= loaded.generation ? existing : loaded);
+		}
 
-			if (name != null) itemMeta.setDisplayName(I18n.colorize(name));
+		return prototype.item.orElse(def);
+	}
 
-			ArrayList<String> coloredLore = new ArrayList<>();
-			for (String s : lore) coloredLore.add(I18n.colorize(s));
+	/**
+	 * Forget all cached config items, they will be built again the next time they are requested.
+	 * Called automatically when the config is reloaded through {@link PluginBase#reloadConfig()},
+	 * and when messages are reloaded through {@link I18n#reload()} since names and lore use their variables.
+	 * Items still being built from the previous config are not cached.
+	 */
+	public static void invalidateConfigItems() {
+		GENERATION.incrementAndGet();
+		ITEMS.clear();
+	}
 
-			itemMeta.setLore(coloredLore);
-			itemStack.setItemMeta(itemMeta);
-			return itemStack;
+	private static Optional<ItemStack> loadItem(String key) {
+		try {
+			return Optional.of(ItemConfig.parse(PluginBase.INSTANCE.getConfig().getConfigurationSection(key)).toItemStack());
 		} catch (Exception e) {
 			PluginBase.INSTANCE.getLogger().warning("Invalid item config for " + key + ": " + e.getMessage());
-			return def;
+			return Optional.empty();
 		}
 	}
 
@@ -141,4 +170,29 @@ public class Utils {
 		FILLER = new ItemBuilder(Material.BLACK_STAINED_GLASS_PANE).blank().build();
 		return FILLER;
 	}
+
+	/**
+	 * Returns a gray stained-glass pane named "Loading..." shown while a GUI is loading its contents
+	 * @return The placeholder item
+	 */
+	public static ItemStack getDefaultPlaceholder() {
+		if (PLACEHOLDER != null) return PLACEHOLDER;
+
+		PLACEHOLDER = new ItemBuilder(Material.GRAY_STAINED_GLASS_PANE).setDisplayName("&7Loading...").setLore(" ").build();
+		return PLACEHOLDER;
+	}
+
+
+	/**
+	 * A cached config item and the generation of the config it was built from
+	 */
+	private static final class Prototype {
+		private final int generation;
+		private final Optional<ItemStack> item; // Empty if the config is invalid
+
+		private Prototype(int generation, Optional<ItemStack> item) {
+			this.generation = generation;
+			this.item = item;
+		}
+	}
 }